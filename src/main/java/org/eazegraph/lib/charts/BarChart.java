@@ -30,6 +30,7 @@ import org.eazegraph.lib.models.BaseModel;
 import org.eazegraph.lib.utils.Utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -89,7 +90,7 @@ public class BarChart extends BaseBarChart {
      */
     public void addBar(BarModel _Bar) {
         mData.add(_Bar);
-        onDataChanged();
+        invalidateStages(DIRTY_SCALE);
     }
 
     /**
@@ -99,7 +100,7 @@ public class BarChart extends BaseBarChart {
      */
     public void addBarList(List<BarModel> _List) {
         mData = _List;
-        onDataChanged();
+        invalidateStages(DIRTY_SCALE);
     }
 
     /**
@@ -119,7 +120,8 @@ public class BarChart extends BaseBarChart {
      */
     public void setShowValues(boolean _showValues) {
         mShowValues = _showValues;
-        invalidateGraphs();
+        // the values need space above the highest bar
+        invalidateStages(DIRTY_GEOMETRY);
     }
 
     /**
@@ -211,8 +213,113 @@ public class BarChart extends BaseBarChart {
 
         }
 
-        Utils.calculateLegendInformation(mData, mLeftPadding, mGraphWidth + mLeftPadding,
-                mLegendPaint);
+        calculateLegend();
+    }
+
+    /**
+     * Copies the currently drawn bar bounds into the start buffer of a transition.
+     *
+     * @return True if the start geometry was captured.
+     */
+    @Override
+    protected boolean onCaptureMorphStart() {
+        if (mGraphWidth <= 0 || mGraphHeight <= 0) {
+            return false;
+        }
+
+        if (mMorphing) {
+            mMorphStart = ensureMorphBuffer(mMorphStart, mMorphCount);
+            System.arraycopy(mMorphRects, 0, mMorphStart, 0, mMorphCount * 4);
+            mMorphStartCount = mMorphCount;
+            return true;
+        }
+
+        int count = 0;
+        mMorphStart = ensureMorphBuffer(mMorphStart, mData.size());
+        for (BarModel model : mData) {
+            RectF bounds = model.getBarBounds();
+            if (bounds == null) {
+                break;
+            }
+            // the bars are captured like they are drawn
+            mMorphStart[count * 4]     = bounds.left;
+            mMorphStart[count * 4 + 1] = bounds.bottom - (bounds.height() * mRevealValue);
+            mMorphStart[count * 4 + 2] = bounds.right;
+            mMorphStart[count * 4 + 3] = bounds.bottom;
+            count++;
+        }
+        mMorphStartCount = count;
+        return true;
+    }
+
+    /**
+     * Copies the new bar bounds into the end buffer of a transition. Bars without a predecessor
+     * grow from their bottom, removed bars disappear immediately.
+     *
+     * @return True if the transition can be started.
+     */
+    @Override
+    protected boolean onCaptureMorphEnd() {
+        int count = mData.size();
+        if (count == 0) {
+            return false;
+        }
+
+        mMorphStart = ensureMorphBuffer(mMorphStart, count);
+        mMorphEnd   = ensureMorphBuffer(mMorphEnd, count);
+        mMorphRects = ensureMorphBuffer(mMorphRects, count);
+
+        for (int i = 0; i < count; i++) {
+            RectF bounds = mData.get(i).getBarBounds();
+            if (bounds == null) {
+                return false;
+            }
+            mMorphEnd[i * 4]     = bounds.left;
+            mMorphEnd[i * 4 + 1] = bounds.top;
+            mMorphEnd[i * 4 + 2] = bounds.right;
+            mMorphEnd[i * 4 + 3] = bounds.bottom;
+
+            if (i >= mMorphStartCount) {
+                mMorphStart[i * 4]     = bounds.left;
+                mMorphStart[i * 4 + 1] = bounds.bottom;
+                mMorphStart[i * 4 + 2] = bounds.right;
+                mMorphStart[i * 4 + 3] = bounds.bottom;
+            }
+        }
+
+        mMorphCount = count;
+        return true;
+    }
+
+    /**
+     * Interpolates the bar bounds of the transition into the reused rect buffer.
+     *
+     * @param _Fraction Progress of the transition between 0 and 1.
+     */
+    @Override
+    protected void onMorphFrame(float _Fraction) {
+        int size = mMorphCount * 4;
+        for (int i = 0; i < size; i++) {
+            mMorphRects[i] = mMorphStart[i] + (mMorphEnd[i] - mMorphStart[i]) * _Fraction;
+        }
+        mGraph.invalidate();
+    }
+
+    /**
+     * Makes sure that the buffer is able to hold the bounds of the given amount of bars.
+     *
+     * @param _Buffer The current buffer or null.
+     * @param _Count  Amount of bars.
+     * @return The given buffer or a bigger one, which contains the values of the given buffer.
+     */
+    private static float[] ensureMorphBuffer(float[] _Buffer, int _Count) {
+        if (_Buffer == null) {
+            return new float[_Count * 4];
+        }
+        if (_Buffer.length < _Count * 4) {
+            return Arrays.copyOf(_Buffer, _Count * 4);
+        }
+        return _Buffer;
     }
 
     /**
@@ -222,6 +329,25 @@ public class BarChart extends BaseBarChart {
      */
     protected void drawBars(Canvas _Canvas) {
 
+        if (mMorphing) {
+            int count = Math.min(mMorphCount, mData.size());
+            for (int i = 0; i < count; i++) {
+                BarModel model = mData.get(i);
+                mGraphPaint.setColor(model.getColor());
+
+                _Canvas.drawRect(mMorphRects[i * 4], mMorphRects[i * 4 + 1], mMorphRects[i * 4 + 2],
+                        mMorphRects[i * 4 + 3], mGraphPaint);
+
+                if (mShowValues) {
+                    _Canvas.drawText(Utils.getFloatString(model.getValue(), mShowDecimal),
+                            (mMorphRects[i * 4] + mMorphRects[i * 4 + 2]) / 2,
+                            mMorphRects[i * 4 + 1] - mValueDistance,
+                            mValuePaint);
+                }
+            }
+            return;
+        }
+
         for (BarModel model : mData) {
             RectF bounds = model.getBarBounds();
             mGraphPaint.setColor(model.getColor());
@@ -270,4 +396,14 @@ public class BarChart extends BaseBarChart {
     private Paint mValuePaint;
     protected boolean mShowValues;
     private int mValueDistance = (int) Utils.dpToPx(3);
+
+    /**
+     * Bounds of the bars at the start and the end of a transition and the interpolated bounds,
+     * which are drawn. Every bar is stored as left, top, right and bottom.
+     */
+    private float[] mMorphStart;
+    private float[] mMorphEnd;
+    private float[] mMorphRects;
+    private int mMorphStartCount = 0;
+    private int mMorphCount = 0;
 }
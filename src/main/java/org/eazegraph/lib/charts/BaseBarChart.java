@@ -120,7 +120,10 @@ public abstract class BaseBarChart extends BaseChart {
      */
     public void setBarWidth(float _barWidth) {
         mBarWidth = _barWidth;
-        onDataChanged();
+        // the bar width is only used if it's fixed
+        if (mFixedBarWidth) {
+            invalidateStages(DIRTY_GEOMETRY);
+        }
     }
 
     /**
@@ -137,7 +140,7 @@ public abstract class BaseBarChart extends BaseChart {
      */
     public void setFixedBarWidth(boolean _fixedBarWidth) {
         mFixedBarWidth = _fixedBarWidth;
-        onDataChanged();
+        invalidateStages(DIRTY_GEOMETRY);
     }
 
     /**
@@ -154,7 +157,10 @@ public abstract class BaseBarChart extends BaseChart {
      */
     public void setBarMargin(float _barMargin) {
         mBarMargin = _barMargin;
-        onDataChanged();
+        // the bar margin is calculated if the bar width is fixed
+        if (!mFixedBarWidth) {
+            invalidateStages(DIRTY_GEOMETRY);
+        }
     }
 
     /**
@@ -196,6 +202,31 @@ public abstract class BaseBarChart extends BaseChart {
         }
     }
 
+    /**
+     * Recalculates the given stages. The scale and the bar bounds are always calculated together,
+     * the legend labels can be placed again without touching the bars.
+     * @param _Stages Combination of the DIRTY_* flags, including the dependent stages.
+     */
+    @Override
+    protected void onProcessStages(int _Stages) {
+        if ((_Stages & DIRTY_TEXT) != 0) {
+            mLegendPaint.setTextSize(mLegendTextSize);
+            mMaxFontHeight = Utils.calculateMaxTextHeight(mLegendPaint);
+        }
+
+        if ((_Stages & (DIRTY_SCALE | DIRTY_GEOMETRY)) != 0) {
+            // also places the legend labels
+            calculateBarPositions(getData().size());
+        }
+        else if ((_Stages & DIRTY_LEGEND) != 0) {
+            calculateLegend();
+        }
+
+        if ((_Stages & DIRTY_PAINT) != 0) {
+            invalidateGraphs();
+        }
+    }
+
     /**
      * Invalidates graph and legend and forces them to be redrawn.
      */
@@ -295,6 +326,14 @@ public abstract class BaseBarChart extends BaseChart {
      */
     protected abstract void calculateBounds(float _Width, float _Margin);
 
+    /**
+     * Calculates which legend labels can be shown and their positions, based on the legend bounds
+     * of the data sets.
+     */
+    protected void calculateLegend() {
+        Utils.calculateLegendInformation(getLegendData(), mLeftPadding, mGraphWidth + mLeftPadding, mLegendPaint);
+    }
+
     /**
      * Callback method for drawing the bars in the child classes.
      * @param _Canvas The canvas object of the graph view.
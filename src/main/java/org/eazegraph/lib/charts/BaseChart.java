@@ -22,6 +22,7 @@ import android.content.res.TypedArray;
 import android.util.AttributeSet;
 import android.view.ViewGroup;
 
+import com.nineoldandroids.animation.Animator;
 import com.nineoldandroids.animation.ValueAnimator;
 
 import org.eazegraph.lib.R;
@@ -51,6 +52,7 @@ public abstract class BaseChart extends ViewGroup {
         mLegendTextSize = Utils.dpToPx(DEF_LEGEND_TEXT_SIZE);
         mAnimationTime  = DEF_ANIMATION_TIME;
         mShowDecimal    = DEF_SHOW_DECIMAL;
+        mMorphAnimationTime = DEF_MORPH_ANIMATION_TIME;
     }
 
     /**
@@ -82,6 +84,7 @@ public abstract class BaseChart extends ViewGroup {
             mLegendTextSize     = a.getDimension(R.styleable.BaseChart_egLegendTextSize,   Utils.dpToPx(DEF_LEGEND_TEXT_SIZE));
             mAnimationTime      = a.getInt(R.styleable.BaseChart_egAnimationTime,          DEF_ANIMATION_TIME);
             mShowDecimal        = a.getBoolean(R.styleable.BaseChart_egShowDecimal,        DEF_SHOW_DECIMAL);
+            mMorphAnimationTime = a.getInt(R.styleable.BaseChart_egMorphAnimationTime,     DEF_MORPH_ANIMATION_TIME);
 
 
         } finally {
@@ -106,8 +109,9 @@ public abstract class BaseChart extends ViewGroup {
     public void setLegendHeight(float _legendHeight) {
         mLegendHeight = Utils.dpToPx(_legendHeight);
 
+        // without data there is nothing to place yet, the first data change uses the new height
         if(getData().size() > 0)
-            onDataChanged();
+            invalidateStages(DIRTY_GEOMETRY);
     }
 
     /**
@@ -124,6 +128,7 @@ public abstract class BaseChart extends ViewGroup {
      */
     public void setLegendTextSize(float _legendTextSize) {
         mLegendTextSize = Utils.dpToPx(_legendTextSize);
+        invalidateStages(DIRTY_TEXT);
     }
 
     /**
@@ -142,13 +147,29 @@ public abstract class BaseChart extends ViewGroup {
         mAnimationTime = _animationTime;
     }
 
+    /**
+     * Returns the duration of the transition which is started by animateUpdate().
+     * @return Morph animation time in milliseconds.
+     */
+    public int getMorphAnimationTime() {
+        return mMorphAnimationTime;
+    }
+
+    /**
+     * Sets the duration of the transition which is started by animateUpdate().
+     * @param _morphAnimationTime Morph animation time in milliseconds.
+     */
+    public void setMorphAnimationTime(int _morphAnimationTime) {
+        mMorphAnimationTime = _morphAnimationTime;
+    }
+
     public boolean isShowDecimal() {
         return mShowDecimal;
     }
 
     public void setShowDecimal(boolean _showDecimal) {
         mShowDecimal = _showDecimal;
-        invalidate();
+        invalidateStages(DIRTY_TEXT);
     }
 
     /**
@@ -210,7 +231,237 @@ public abstract class BaseChart extends ViewGroup {
      * Graph implementations might overwrite this method to do more work than just call onDataChanged()
      */
     public void update() {
-        onDataChanged();
+        invalidateStages(DIRTY_SCALE);
+    }
+
+    /**
+     * Starts a batch of changes. Until the matching {@link #endUpdate()} call, data changes and
+     * setters only mark their stages as dirty and nothing is calculated. Batches can be nested, the
+     * chart is calculated when the outermost batch ends.
+     */
+    public void beginUpdate() {
+        mUpdateDepth++;
+    }
+
+    /**
+     * Ends a batch of changes. If it was the outermost batch, all stages which were marked as dirty
+     * during the batch are calculated once.
+     */
+    public void endUpdate() {
+        if (mUpdateDepth == 0) {
+            throw new IllegalStateException("endUpdate() was called without beginUpdate()");
+        }
+        mUpdateDepth--;
+        processDirtyStages();
+    }
+
+    /**
+     * Runs the given changes as a batch, so that the chart is calculated only once afterwards.
+     * @param _changes The changes, e.g. a loop which adds the data.
+     */
+    public void applyUpdate(Runnable _changes) {
+        beginUpdate();
+        try {
+            _changes.run();
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Runs the given changes as a batch and animates the chart from the currently drawn geometry
+     * to the new one. The start and end geometry are captured once, every frame only interpolates
+     * between them, so large charts can be animated without allocations. Charts which don't
+     * support the transition are updated without animation, as well as changes inside of a
+     * running batch, because the new geometry is only calculated when the batch ends.
+     * @param _changes The changes, e.g. replacing the data.
+     */
+    public void animateUpdate(Runnable _changes) {
+        if (mUpdateDepth > 0) {
+            _changes.run();
+            return;
+        }
+
+        // a running transition is continued from the currently drawn state
+        boolean captured = onCaptureMorphStart();
+        stopMorph();
+
+        applyUpdate(_changes);
+
+        if (captured && onCaptureMorphEnd()) {
+            startMorph();
+        }
+    }
+
+    /**
+     * Checks if a transition of animateUpdate() is running.
+     * @return True if the interpolated geometry is drawn.
+     */
+    public boolean isMorphing() {
+        return mMorphing;
+    }
+
+    /**
+     * Starts the transition between the captured start and end geometry.
+     */
+    protected void startMorph() {
+        if (mMorphAnimator == null) {
+            mMorphAnimator = ValueAnimator.ofFloat(0, 1);
+            mMorphAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+                @Override
+                public void onAnimationUpdate(ValueAnimator animation) {
+                    if (mMorphing) {
+                        onMorphFrame(animation.getAnimatedFraction());
+                    }
+                }
+            });
+            mMorphAnimator.addListener(new Animator.AnimatorListener() {
+                @Override
+                public void onAnimationStart(Animator animation) {
+
+                }
+
+                @Override
+                public void onAnimationEnd(Animator animation) {
+                    stopMorph();
+                }
+
+                @Override
+                public void onAnimationCancel(Animator animation) {
+
+                }
+
+                @Override
+                public void onAnimationRepeat(Animator animation) {
+
+                }
+            });
+        }
+
+        cancelMorph();
+        mMorphing = true;
+        onMorphFrame(0.f);
+        mMorphAnimator.setDuration(mMorphAnimationTime).start();
+    }
+
+    /**
+     * Stops a running transition, so that the current geometry is drawn again.
+     */
+    protected void stopMorph() {
+        if (mMorphing) {
+            cancelMorph();
+            invalidateStages(DIRTY_PAINT);
+        }
+    }
+
+    /**
+     * Stops a running transition without redrawing the chart.
+     */
+    private void cancelMorph() {
+        mMorphing = false;
+        if (mMorphAnimator != null && mMorphAnimator.isRunning()) {
+            mMorphAnimator.cancel();
+        }
+    }
+
+    /**
+     * Copies the currently drawn geometry into the start buffers of a transition. If a transition
+     * is running, the interpolated geometry has to be captured. The default implementation doesn't
+     * support transitions.
+     * @return True if the start geometry was captured.
+     */
+    protected boolean onCaptureMorphStart() {
+        return false;
+    }
+
+    /**
+     * Copies the new geometry into the end buffers of a transition. This is called after the
+     * changes were applied.
+     * @return True if the transition can be started.
+     */
+    protected boolean onCaptureMorphEnd() {
+        return false;
+    }
+
+    /**
+     * Interpolates the captured geometry into the reused draw buffers and invalidates the graph.
+     * This is called on every frame of the transition and must not allocate.
+     * @param _Fraction Progress of the transition between 0 and 1.
+     */
+    protected void onMorphFrame(float _Fraction) {
+    }
+
+    /**
+     * Checks if changes are currently collected in a batch.
+     * @return True if a batch is running.
+     */
+    public boolean isUpdating() {
+        return mUpdateDepth > 0;
+    }
+
+    /**
+     * Marks the given stages as dirty and recalculates them. The stages which depend on them are
+     * marked as well, so a setter only has to name the stages it directly affects.
+     * @param _Stages Combination of the DIRTY_* flags.
+     */
+    protected void invalidateStages(int _Stages) {
+        mDirtyStages |= resolveStages(_Stages);
+        processDirtyStages();
+    }
+
+    /**
+     * Recalculates all dirty stages and clears them. Nothing is calculated while a batch is running.
+     */
+    protected void processDirtyStages() {
+        if (mUpdateDepth > 0) {
+            return;
+        }
+
+        int stages = mDirtyStages;
+        mDirtyStages = 0;
+
+        // a transition would draw outdated geometry
+        if ((stages & (DIRTY_SCALE | DIRTY_GEOMETRY)) != 0) {
+            cancelMorph();
+        }
+
+        if (stages != 0) {
+            onProcessStages(stages);
+        }
+    }
+
+    /**
+     * Recalculates the given stages. The default implementation recalculates everything with
+     * onDataChanged(), unless only the paint is dirty. Charts should override this to redo only
+     * the affected stages.
+     * @param _Stages Combination of the DIRTY_* flags, including the dependent stages.
+     */
+    protected void onProcessStages(int _Stages) {
+        if ((_Stages & ~DIRTY_PAINT) != 0) {
+            onDataChanged();
+        }
+        else {
+            invalidate();
+        }
+    }
+
+    /**
+     * Adds the stages which depend on the given stages. A new scale moves the geometry, the legend
+     * follows the geometry and the text measurement, and every change has to be drawn.
+     * @param _Stages Combination of the DIRTY_* flags.
+     * @return The given and all dependent stages.
+     */
+    private static int resolveStages(int _Stages) {
+        if ((_Stages & DIRTY_SCALE) != 0) {
+            _Stages |= DIRTY_GEOMETRY;
+        }
+        if ((_Stages & (DIRTY_GEOMETRY | DIRTY_TEXT)) != 0) {
+            _Stages |= DIRTY_LEGEND;
+        }
+        if (_Stages != 0) {
+            _Stages |= DIRTY_PAINT;
+        }
+        return _Stages;
     }
 
     //##############################################################################################
@@ -225,6 +476,32 @@ public abstract class BaseChart extends ViewGroup {
     public static final float   DEF_LEGEND_TEXT_SIZE    = 12.f;
     public static final int     DEF_ANIMATION_TIME      = 2000;
     public static final boolean DEF_SHOW_DECIMAL        = false;
+    public static final int     DEF_MORPH_ANIMATION_TIME = 300;
+
+    /**
+     * The value range and the resulting y-scale of the chart.
+     */
+    protected static final int  DIRTY_SCALE             = 1;
+
+    /**
+     * The screen coordinates, paths and bounds of the data.
+     */
+    protected static final int  DIRTY_GEOMETRY          = 1 << 1;
+
+    /**
+     * The positions and the visibility of the legend labels.
+     */
+    protected static final int  DIRTY_LEGEND            = 1 << 2;
+
+    /**
+     * Text sizes and the measured bounds of texts.
+     */
+    protected static final int  DIRTY_TEXT              = 1 << 3;
+
+    /**
+     * Colors and strokes, which only require the chart to be drawn again.
+     */
+    protected static final int  DIRTY_PAINT             = 1 << 4;
 
     protected int               mHeight;
     protected int               mWidth;
@@ -251,4 +528,22 @@ public abstract class BaseChart extends ViewGroup {
     protected int               mAnimationTime      = 1000;
     protected boolean           mStartedAnimation   = false;
 
+    protected int               mMorphAnimationTime = DEF_MORPH_ANIMATION_TIME;
+
+    /**
+     * Indicates that the interpolated geometry of a transition is drawn.
+     */
+    protected boolean           mMorphing           = false;
+    private ValueAnimator       mMorphAnimator      = null;
+
+    /**
+     * The stages which have to be recalculated. Combination of the DIRTY_* flags.
+     */
+    private int                 mDirtyStages        = 0;
+
+    /**
+     * Amount of nested batches which are currently running.
+     */
+    private int                 mUpdateDepth        = 0;
+
 }
@@ -77,6 +77,7 @@ import org.eazegraph.lib.models.PieModel;
 import org.eazegraph.lib.utils.Utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -182,7 +183,7 @@ public class PieChart extends BaseChart {
      */
     public void setUseInnerPadding(boolean _useInnerPadding) {
         mUseInnerPadding = _useInnerPadding;
-        onDataChanged();
+        invalidateStages(DIRTY_PAINT);
     }
 
     /**
@@ -201,7 +202,7 @@ public class PieChart extends BaseChart {
      */
     public void setInnerPadding(float _innerPadding) {
         mInnerPadding = _innerPadding;
-        onDataChanged();
+        invalidateStages(DIRTY_GEOMETRY);
     }
 
     /**
@@ -210,7 +211,7 @@ public class PieChart extends BaseChart {
      */
     public void setInnerPaddingColor(int color) {
         mInnerPaddingColor = color;
-        mGraph.invalidate();
+        invalidateStages(DIRTY_PAINT);
     }
 
     /**
@@ -236,7 +237,7 @@ public class PieChart extends BaseChart {
      */
     public void setInnerPaddingOutline(float _innerPaddingOutline) {
         mInnerPaddingOutline = _innerPaddingOutline;
-        onDataChanged();
+        invalidateStages(DIRTY_GEOMETRY);
     }
 
     /**
@@ -258,7 +259,7 @@ public class PieChart extends BaseChart {
         for (PieModel model : mPieData) {
             highlightSlice(model);
         }
-        invalidate();
+        invalidateStages(DIRTY_PAINT);
     }
 
     /**
@@ -316,7 +317,7 @@ public class PieChart extends BaseChart {
      */
     public void setDrawValueInPie(boolean _drawValueInPie) {
         mDrawValueInPie = _drawValueInPie;
-        invalidate();
+        invalidateStages(DIRTY_PAINT);
     }
 
     /**
@@ -335,7 +336,7 @@ public class PieChart extends BaseChart {
      */
     public void setValueTextSize(float _valueTextSize) {
         mValueTextSize = Utils.dpToPx(_valueTextSize);
-        invalidate();
+        invalidateStages(DIRTY_TEXT);
     }
 
     /**
@@ -354,6 +355,7 @@ public class PieChart extends BaseChart {
      */
     public void setValueTextColor(int _valueTextColor) {
         mValueTextColor = _valueTextColor;
+        invalidateStages(DIRTY_PAINT);
     }
 
     /**
@@ -392,6 +394,7 @@ public class PieChart extends BaseChart {
      */
     public void setUseCustomInnerValue(boolean _useCustomInnerValue) {
         mUseCustomInnerValue = _useCustomInnerValue;
+        invalidateStages(DIRTY_PAINT);
     }
 
     /**
@@ -483,7 +486,7 @@ public class PieChart extends BaseChart {
         highlightSlice(_Slice);
         mPieData.add(_Slice);
         mTotalValue += _Slice.getValue();
-        onDataChanged();
+        invalidateStages(DIRTY_SCALE);
     }
 
     /**
@@ -495,7 +498,7 @@ public class PieChart extends BaseChart {
         for (PieModel slice : mPieData) {
             mTotalValue += slice.getValue();
         }
-        onDataChanged();
+        invalidateStages(DIRTY_SCALE);
     }
 
     /**
@@ -739,6 +742,128 @@ public class PieChart extends BaseChart {
         onScrollFinished();
     }
 
+    /**
+     * Recalculates the given stages. The angles of the slices are only calculated again if the
+     * scale is dirty, the bounds of the inner padding only depend on the geometry stage.
+     * @param _Stages Combination of the DIRTY_* flags, including the dependent stages.
+     */
+    @Override
+    protected void onProcessStages(int _Stages) {
+        if ((_Stages & DIRTY_TEXT) != 0) {
+            mLegendPaint.setTextSize(mLegendTextSize);
+            mValuePaint.setTextSize(mValueTextSize);
+        }
+
+        if ((_Stages & DIRTY_SCALE) != 0) {
+            onDataChanged();
+        }
+
+        if ((_Stages & DIRTY_GEOMETRY) != 0) {
+            mGraph.calculateInnerBounds();
+        }
+
+        if ((_Stages & DIRTY_PAINT) != 0) {
+            mValuePaint.setColor(mValueTextColor);
+            mGraph.invalidate();
+            mValueView.invalidate();
+            mLegend.invalidate();
+        }
+    }
+
+    /**
+     * Copies the currently drawn angles of the slices into the start buffer of a transition.
+     *
+     * @return True if the start geometry was captured.
+     */
+    @Override
+    protected boolean onCaptureMorphStart() {
+        if (mMorphing) {
+            mMorphStart = ensureMorphBuffer(mMorphStart, mMorphCount);
+            System.arraycopy(mMorphAngles, 0, mMorphStart, 0, mMorphCount * 2);
+            mMorphStartCount = mMorphCount;
+            return true;
+        }
+
+        int count = mPieData.size();
+        mMorphStart = ensureMorphBuffer(mMorphStart, count);
+        for (int i = 0; i < count; i++) {
+            // the slices are captured like they are drawn
+            PieModel model = mPieData.get(i);
+            mMorphStart[i * 2]     = model.getStartAngle() * mRevealValue;
+            mMorphStart[i * 2 + 1] = model.getEndAngle() * mRevealValue;
+        }
+        mMorphStartCount = count;
+        return true;
+    }
+
+    /**
+     * Copies the new angles of the slices into the end buffer of a transition. Slices without a
+     * predecessor grow from the end of the pie. If slices were removed, the last slice starts with
+     * the end of the removed slices, so the pie stays closed.
+     *
+     * @return True if the transition can be started.
+     */
+    @Override
+    protected boolean onCaptureMorphEnd() {
+        int count = mPieData.size();
+        if (count == 0) {
+            return false;
+        }
+
+        mMorphStart  = ensureMorphBuffer(mMorphStart, count);
+        mMorphEnd    = ensureMorphBuffer(mMorphEnd, count);
+        mMorphAngles = ensureMorphBuffer(mMorphAngles, count);
+
+        float end = mMorphStartCount > 0 ? mMorphStart[mMorphStartCount * 2 - 1] : 360;
+        for (int i = 0; i < count; i++) {
+            PieModel model = mPieData.get(i);
+            mMorphEnd[i * 2]     = model.getStartAngle();
+            mMorphEnd[i * 2 + 1] = model.getEndAngle();
+
+            if (i >= mMorphStartCount) {
+                mMorphStart[i * 2]     = end;
+                mMorphStart[i * 2 + 1] = end;
+            }
+        }
+        if (count < mMorphStartCount) {
+            mMorphStart[count * 2 - 1] = end;
+        }
+
+        mMorphCount = count;
+        return true;
+    }
+
+    /**
+     * Interpolates the angles of the transition into the reused angle buffer.
+     *
+     * @param _Fraction Progress of the transition between 0 and 1.
+     */
+    @Override
+    protected void onMorphFrame(float _Fraction) {
+        int size = mMorphCount * 2;
+        for (int i = 0; i < size; i++) {
+            mMorphAngles[i] = mMorphStart[i] + (mMorphEnd[i] - mMorphStart[i]) * _Fraction;
+        }
+        mGraph.invalidate();
+    }
+
+    /**
+     * Makes sure that the buffer is able to hold the angles of the given amount of slices.
+     *
+     * @param _Buffer The current buffer or null.
+     * @param _Count  Amount of slices.
+     * @return The given buffer or a bigger one, which contains the values of the given buffer.
+     */
+    private static float[] ensureMorphBuffer(float[] _Buffer, int _Count) {
+        if (_Buffer == null) {
+            return new float[_Count * 2];
+        }
+        if (_Buffer.length < _Count * 2) {
+            return Arrays.copyOf(_Buffer, _Count * 2);
+        }
+        return _Buffer;
+    }
+
     /**
      * Calculate the highlight color. Saturate at 0xff to make sure that high values
      * don't result in aliasing.
@@ -921,19 +1046,26 @@ public class PieChart extends BaseChart {
                     canvas.setMatrix(mTransform);
                 }
 
-                for (PieModel model : mPieData) {
+                int count = mMorphing ? Math.min(mMorphCount, mPieData.size()) : mPieData.size();
+
+                for (int i = 0; i < count; i++) {
+                    PieModel model = mPieData.get(i);
                     mGraphPaint.setColor(model.getColor());
 
+                    // the interpolated angles of a transition already contain the reveal
+                    float begin = mMorphing ? mMorphAngles[i * 2]     : model.getStartAngle() * mRevealValue;
+                    float end   = mMorphing ? mMorphAngles[i * 2 + 1] : model.getEndAngle() * mRevealValue;
+
                     // TODO: put calculation in the animation onUpdate method and provide an animated value
                     float startAngle;
                     if(mOpenClockwise) {
-                        startAngle = model.getStartAngle() * mRevealValue;
+                        startAngle = begin;
                     }
                     else {
-                        startAngle = 360 - model.getEndAngle() * mRevealValue;
+                        startAngle = 360 - end;
                     }
 
-                    float sweepAngle = (model.getEndAngle() - model.getStartAngle()) * mRevealValue;
+                    float sweepAngle = end - begin;
                     canvas.drawArc(mGraphBounds,
                             startAngle,
                             sweepAngle,
@@ -1004,6 +1136,21 @@ public class PieChart extends BaseChart {
                     mPieDiameter);
             mGraphBounds.offsetTo(centeredValueWidth, centeredValueHeight);
 
+            calculateInnerBounds();
+
+            mGraphWidth  = w;
+            mGraphHeight = h;
+
+        }
+
+        /**
+         * Calculates the bounds of the inner padding and its outline, based on the current pie bounds.
+         */
+        public void calculateInnerBounds() {
+            if (mGraphBounds == null) {
+                return;
+            }
+
             mCalculatedInnerPadding         = (mPieRadius / 100) * mInnerPadding;
             mCalculatedInnerPaddingOutline  = (mPieRadius / 100) * mInnerPaddingOutline;
 
@@ -1018,10 +1165,6 @@ public class PieChart extends BaseChart {
                     mGraphBounds.centerY() - mCalculatedInnerPadding,
                     mGraphBounds.centerX() + mCalculatedInnerPadding,
                     mGraphBounds.centerY() + mCalculatedInnerPadding);
-
-            mGraphWidth  = w;
-            mGraphHeight = h;
-
         }
 
         public void rotateTo(float pieRotation) {
@@ -1301,6 +1444,16 @@ public class PieChart extends BaseChart {
     private float               mPieDiameter;
     private float               mPieRadius;
     private float               mTotalValue;
+
+    /**
+     * Start and end angle of every slice at the start and the end of a transition and the
+     * interpolated angles, which are drawn.
+     */
+    private float[]             mMorphStart;
+    private float[]             mMorphEnd;
+    private float[]             mMorphAngles;
+    private int                 mMorphStartCount = 0;
+    private int                 mMorphCount      = 0;
     private String              mInnerValueString = "";
 
     private boolean             mUseInnerPadding;
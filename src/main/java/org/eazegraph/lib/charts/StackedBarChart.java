@@ -9,7 +9,6 @@ import android.view.MotionEvent;
 import org.eazegraph.lib.models.BarModel;
 import org.eazegraph.lib.models.BaseModel;
 import org.eazegraph.lib.models.StackedBarModel;
-import org.eazegraph.lib.utils.Utils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -56,7 +55,7 @@ public class StackedBarChart extends BaseBarChart {
      */
     public void addBar(StackedBarModel _Bar) {
         mData.add(_Bar);
-        onDataChanged();
+        invalidateStages(DIRTY_SCALE);
     }
 
     /**
@@ -65,7 +64,7 @@ public class StackedBarChart extends BaseBarChart {
      */
     public void addBarList(List<StackedBarModel> _List) {
         mData = _List;
-        onDataChanged();
+        invalidateStages(DIRTY_SCALE);
     }
 
     /**
@@ -161,7 +160,7 @@ public class StackedBarChart extends BaseBarChart {
             last += _Width + (_Margin / 2);
         }
 
-        Utils.calculateLegendInformation(mData, mLeftPadding, mGraphWidth + mLeftPadding, mLegendPaint);
+        calculateLegend();
     }
 
     /**
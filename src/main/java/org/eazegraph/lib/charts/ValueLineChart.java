@@ -19,15 +19,25 @@ package org.eazegraph.lib.charts;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.Rect;
 import android.graphics.RectF;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.LruCache;
+import android.view.Choreographer;
+import android.view.GestureDetector;
 import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.View;
 
 import com.nineoldandroids.animation.Animator;
@@ -35,15 +45,28 @@ import com.nineoldandroids.animation.ValueAnimator;
 
 import org.eazegraph.lib.R;
 import org.eazegraph.lib.communication.IOnPointFocusedListener;
+import org.eazegraph.lib.communication.IOnPointsFocusedListener;
+import org.eazegraph.lib.models.BandValueLineSeries;
 import org.eazegraph.lib.models.BaseModel;
+import org.eazegraph.lib.models.ColumnarValueLineSeries;
 import org.eazegraph.lib.models.LegendModel;
 import org.eazegraph.lib.models.Point2D;
+import org.eazegraph.lib.models.RingBufferValueLineSeries;
 import org.eazegraph.lib.models.ValueLinePoint;
 import org.eazegraph.lib.models.ValueLineSeries;
+import org.eazegraph.lib.models.XYValueLineSeries;
+import org.eazegraph.lib.utils.Downsampler;
 import org.eazegraph.lib.utils.Utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A LineChart which displays various line series with one value and the remaining information is
@@ -61,7 +84,9 @@ public class ValueLineChart extends BaseChart {
         super(context);
 
         mUseCubic                     = DEF_USE_CUBIC;
+        mUseMonotoneCubic             = DEF_USE_MONOTONE_CUBIC;
         mUseOverlapFill               = DEF_USE_OVERLAP_FILL;
+        mUseStackedFill               = DEF_USE_STACKED_FILL;
         mLineStroke                   = Utils.dpToPx(DEF_LINE_STROKE);
         mFirstMultiplier              = DEF_FIRST_MULTIPLIER;
         mSecondMultiplier             = 1.0f - mFirstMultiplier;
@@ -75,6 +100,16 @@ public class ValueLineChart extends BaseChart {
         mStandardValueIndicatorStroke = Utils.dpToPx(DEF_STANDARD_VALUE_INDICATOR_STROKE);
         mStandardValueColor           = DEF_STANDARD_VALUE_COLOR;
         mXAxisStroke                  = Utils.dpToPx(DEF_X_AXIS_STROKE);
+        mDownsamplingMode             = DEF_DOWNSAMPLING_MODE;
+        mSimplifyTolerance            = Utils.dpToPx(DEF_SIMPLIFY_TOLERANCE);
+        mAsyncLayout                  = DEF_ASYNC_LAYOUT;
+        mProgressiveLayout            = DEF_PROGRESSIVE_LAYOUT;
+        mUseViewport                  = DEF_USE_VIEWPORT;
+        mAutoScaleViewport            = DEF_AUTO_SCALE_VIEWPORT;
+        mUseCachedReveal              = DEF_USE_CACHED_REVEAL;
+        mLegendMode                   = DEF_LEGEND_MODE;
+        mUseTiledRendering            = DEF_USE_TILED_RENDERING;
+        mTileCacheSize                = DEF_TILE_CACHE_SIZE;
 
         initializeGraph();
     }
@@ -105,7 +140,9 @@ public class ValueLineChart extends BaseChart {
         try {
 
             mUseCubic                     = a.getBoolean(R.styleable.ValueLineChart_egUseCubic,                         DEF_USE_CUBIC);
+            mUseMonotoneCubic             = a.getBoolean(R.styleable.ValueLineChart_egUseMonotoneCubic,                 DEF_USE_MONOTONE_CUBIC);
             mUseOverlapFill               = a.getBoolean(R.styleable.ValueLineChart_egUseOverlapFill,                   DEF_USE_OVERLAP_FILL);
+            mUseStackedFill               = a.getBoolean(R.styleable.ValueLineChart_egUseStackedFill,                   DEF_USE_STACKED_FILL);
             mLineStroke                   = a.getDimension(R.styleable.ValueLineChart_egLineStroke,                     Utils.dpToPx(DEF_LINE_STROKE));
             mFirstMultiplier              = a.getFloat(R.styleable.ValueLineChart_egCurveSmoothness,                    DEF_FIRST_MULTIPLIER);
             mSecondMultiplier             = 1.0f - mFirstMultiplier;
@@ -119,6 +156,16 @@ public class ValueLineChart extends BaseChart {
             mStandardValueIndicatorStroke = a.getDimension(R.styleable.ValueLineChart_egStandardValueIndicatorStroke,   Utils.dpToPx(DEF_STANDARD_VALUE_INDICATOR_STROKE));
             mStandardValueColor           = a.getColor(R.styleable.ValueLineChart_egStandardValueColor,                 DEF_STANDARD_VALUE_COLOR);
             mXAxisStroke                  = a.getDimension(R.styleable.ValueLineChart_egXAxisStroke,                    Utils.dpToPx(DEF_X_AXIS_STROKE));
+            mDownsamplingMode             = a.getInt(R.styleable.ValueLineChart_egDownsampling,                         DEF_DOWNSAMPLING_MODE);
+            mSimplifyTolerance            = a.getDimension(R.styleable.ValueLineChart_egSimplifyTolerance,              Utils.dpToPx(DEF_SIMPLIFY_TOLERANCE));
+            mAsyncLayout                  = a.getBoolean(R.styleable.ValueLineChart_egAsyncLayout,                      DEF_ASYNC_LAYOUT);
+            mProgressiveLayout            = a.getBoolean(R.styleable.ValueLineChart_egProgressiveLayout,                DEF_PROGRESSIVE_LAYOUT);
+            mUseViewport                  = a.getBoolean(R.styleable.ValueLineChart_egUseViewport,                      DEF_USE_VIEWPORT);
+            mAutoScaleViewport            = a.getBoolean(R.styleable.ValueLineChart_egAutoScaleViewport,                DEF_AUTO_SCALE_VIEWPORT);
+            mUseCachedReveal              = a.getBoolean(R.styleable.ValueLineChart_egUseCachedReveal,                  DEF_USE_CACHED_REVEAL);
+            mLegendMode                   = a.getInt(R.styleable.ValueLineChart_egLegendMode,                           DEF_LEGEND_MODE);
+            mUseTiledRendering            = a.getBoolean(R.styleable.ValueLineChart_egUseTiledRendering,                DEF_USE_TILED_RENDERING);
+            mTileCacheSize                = a.getInt(R.styleable.ValueLineChart_egTileCacheSize,                        DEF_TILE_CACHE_SIZE);
 
         } finally {
             // release the TypedArray so that it can be reused.
@@ -134,7 +181,58 @@ public class ValueLineChart extends BaseChart {
      */
     public void addSeries(ValueLineSeries _Series) {
         mSeries.add(_Series);
-        onDataChanged();
+        invalidateStages(DIRTY_SCALE);
+    }
+
+    /**
+     * Recalculates the chart after the data changed. The points of the series may have been changed
+     * directly, so the range indices of the series are built again with the next scale calculation.
+     */
+    @Override
+    public void update() {
+        for (ValueLineSeries series : mSeries) {
+            series.invalidateRangeIndex();
+        }
+        super.update();
+    }
+
+    /**
+     * Appends a value to a series with the next frame. This can be called from any thread, the value
+     * is only stored in a pending buffer. All values which arrived until the next frame are
+     * appended together and the chart is calculated once, so producers which are faster than the
+     * display don't cause additional layout passes. The frames are paced by the Choreographer on
+     * API level 16 and above, older devices wait for one frame duration.
+     * @param _series The series which should be extended. A RingBufferValueLineSeries evicts its
+     *                oldest value. Series with explicit x-values or envelopes are not supported.
+     * @param _value  The value which should be appended.
+     */
+    public void appendLive(ValueLineSeries _series, float _value) {
+        if (_series instanceof XYValueLineSeries || _series instanceof BandValueLineSeries) {
+            throw new IllegalArgumentException("Only series with a single value per point can be appended");
+        }
+
+        boolean schedule;
+        synchronized (mPendingLock) {
+            if (mPendingCount == mPendingValues.length) {
+                mPendingSeries = Arrays.copyOf(mPendingSeries, mPendingCount * 2);
+                mPendingValues = Arrays.copyOf(mPendingValues, mPendingCount * 2);
+            }
+            mPendingSeries[mPendingCount] = _series;
+            mPendingValues[mPendingCount] = _value;
+            mPendingCount++;
+
+            schedule = !mLiveFrameScheduled;
+            mLiveFrameScheduled = true;
+        }
+
+        // both are safe to call from any thread and don't touch the views
+        if (schedule) {
+            if (mLiveFrameCallback != null) {
+                mChoreographer.postFrameCallback(mLiveFrameCallback);
+            } else {
+                mMainHandler.postDelayed(mLiveFrameRunnable, LIVE_FRAME_DELAY);
+            }
+        }
     }
 
     /**
@@ -143,6 +241,9 @@ public class ValueLineChart extends BaseChart {
     @Override
     public void clearChart() {
         mSeries.clear();
+        mFocusedIndex    = -1;
+        mFocusedIndices  = new int[0];
+        mFocusIndexValid = false;
     }
 
     /**
@@ -163,7 +264,7 @@ public class ValueLineChart extends BaseChart {
      */
     public void addStandardValue(float _standardValue) {
         mStandardValue = _standardValue;
-        onDataChanged();
+        invalidateStages(DIRTY_SCALE);
     }
 
     /**
@@ -174,6 +275,14 @@ public class ValueLineChart extends BaseChart {
         mListener = _listener;
     }
 
+    /**
+     * Sets the listener which is notified about the focused points of all series.
+     * @param _listener An instance of the IOnPointsFocusedListener interface.
+     */
+    public void setOnPointsFocusedListener(IOnPointsFocusedListener _listener) {
+        mPointsListener = _listener;
+    }
+
     /**
      * Checks if the graph is a cubic graph.
      * @return True if it's a cubic graph.
@@ -188,7 +297,26 @@ public class ValueLineChart extends BaseChart {
      */
     public void setUseCubic(boolean _useCubic) {
         mUseCubic = _useCubic;
-        onDataChanged();
+        invalidateStages(DIRTY_GEOMETRY);
+    }
+
+    /**
+     * Checks if the cubic lines use a monotone interpolation.
+     * @return True if the monotone interpolation is used.
+     */
+    public boolean isUseMonotoneCubic() {
+        return mUseMonotoneCubic;
+    }
+
+    /**
+     * Sets if the cubic lines should use a monotone (Fritsch-Carlson) interpolation instead of the
+     * curve smoothness. A monotone curve never overshoots the values of its points, so it always
+     * stays inside the y-scale. Only used if cubic lines are enabled.
+     * @param _useMonotoneCubic True if the monotone interpolation should be used.
+     */
+    public void setUseMonotoneCubic(boolean _useMonotoneCubic) {
+        mUseMonotoneCubic = _useMonotoneCubic;
+        invalidateStages(DIRTY_GEOMETRY);
     }
 
     /**
@@ -206,7 +334,30 @@ public class ValueLineChart extends BaseChart {
      */
     public void setUseOverlapFill(boolean _useOverlapFill) {
         mUseOverlapFill = _useOverlapFill;
-        onDataChanged();
+        invalidateStages(DIRTY_GEOMETRY);
+    }
+
+    /**
+     * Checks if the series are drawn as stacked areas.
+     * @return True if the series are stacked.
+     */
+    public boolean isUseStackedFill() {
+        return mUseStackedFill;
+    }
+
+    /**
+     * Draws every series as a filled band on top of the previous series. The series are stacked by
+     * the index of their points, so they should contain the same amount of points. Gaps count as 0.
+     * The running sums are calculated during the layout pass, so cumulative series don't have to be
+     * created. If cubic lines are enabled, the monotone interpolation is used, because the edge
+     * between two bands is traversed in both directions. Stacked series are neither downsampled nor
+     * simplified, because the outlines of two series would be reduced to different points and could
+     * cross each other.
+     * @param _useStackedFill True if the series should be stacked.
+     */
+    public void setUseStackedFill(boolean _useStackedFill) {
+        mUseStackedFill = _useStackedFill;
+        invalidateStages(DIRTY_SCALE);
     }
 
     /**
@@ -223,7 +374,7 @@ public class ValueLineChart extends BaseChart {
      */
     public void setLineStroke(float _lineStroke) {
         mLineStroke = Utils.dpToPx(_lineStroke);
-        invalidate();
+        invalidateStages(DIRTY_PAINT);
     }
 
     /**
@@ -240,7 +391,8 @@ public class ValueLineChart extends BaseChart {
      */
     public void setShowIndicator(boolean _showIndicator) {
         mShowIndicator = _showIndicator;
-        invalidate();
+        // the value of the focused point has to be measured
+        invalidateStages(DIRTY_TEXT);
     }
 
     /**
@@ -257,7 +409,7 @@ public class ValueLineChart extends BaseChart {
      */
     public void setIndicatorWidth(float _indicatorWidth) {
         mIndicatorWidth = Utils.dpToPx(_indicatorWidth);
-        invalidate();
+        invalidateStages(DIRTY_PAINT);
     }
 
     /**
@@ -274,7 +426,7 @@ public class ValueLineChart extends BaseChart {
      */
     public void setIndicatorColor(int _indicatorColor) {
         mIndicatorColor = _indicatorColor;
-        invalidate();
+        invalidateStages(DIRTY_PAINT);
     }
 
     /**
@@ -291,7 +443,7 @@ public class ValueLineChart extends BaseChart {
      */
     public void setIndicatorTextSize(float _indicatorTextSize) {
         mIndicatorTextSize = Utils.dpToPx(_indicatorTextSize);
-        invalidate();
+        invalidateStages(DIRTY_TEXT);
     }
 
     /**
@@ -308,7 +460,8 @@ public class ValueLineChart extends BaseChart {
      */
     public void setIndicatorLeftPadding(float _indicatorLeftPadding) {
         mIndicatorLeftPadding = Utils.dpToPx(_indicatorLeftPadding);
-        invalidate();
+        // the position of the value depends on its measured width
+        invalidateStages(DIRTY_TEXT);
     }
 
     /**
@@ -325,7 +478,7 @@ public class ValueLineChart extends BaseChart {
      */
     public void setIndicatorTopPadding(float _indicatorTopPadding) {
         mIndicatorTopPadding = Utils.dpToPx(_indicatorTopPadding);
-        invalidate();
+        invalidateStages(DIRTY_PAINT);
     }
 
     /**
@@ -342,7 +495,7 @@ public class ValueLineChart extends BaseChart {
      */
     public void setShowStandardValue(boolean _showStandardValue) {
         mShowStandardValue = _showStandardValue;
-        onDataChanged();
+        invalidateStages(DIRTY_SCALE);
     }
 
     /**
@@ -359,7 +512,7 @@ public class ValueLineChart extends BaseChart {
      */
     public void setStandardValueIndicatorStroke(float _standardValueIndicatorStroke) {
         mStandardValueIndicatorStroke = Utils.dpToPx(_standardValueIndicatorStroke);
-        invalidate();
+        invalidateStages(DIRTY_PAINT);
     }
 
     /**
@@ -376,7 +529,7 @@ public class ValueLineChart extends BaseChart {
      */
     public void setStandardValueColor(int _standardValueColor) {
         mStandardValueColor = _standardValueColor;
-        invalidate();
+        invalidateStages(DIRTY_PAINT);
     }
 
     /**
@@ -393,7 +546,278 @@ public class ValueLineChart extends BaseChart {
      */
     public void setXAxisStroke(float _XAxisStroke) {
         mXAxisStroke = Utils.dpToPx(_XAxisStroke);
-        invalidate();
+        invalidateStages(DIRTY_PAINT);
+    }
+
+    /**
+     * Returns the downsampling mode which is applied to the series before the path is generated.
+     * @return One of the DOWNSAMPLING_* constants.
+     */
+    public int getDownsamplingMode() {
+        return mDownsamplingMode;
+    }
+
+    /**
+     * Sets the downsampling mode. If a downsampling mode is set, series with more points than the
+     * graph is wide in pixels are reduced to that amount of points before the path is generated.
+     * The touch indicator and the IOnPointFocusedListener still refer to the original points.
+     * Stacked series are not downsampled.
+     * @param _downsamplingMode One of the DOWNSAMPLING_* constants.
+     */
+    public void setDownsamplingMode(int _downsamplingMode) {
+        mDownsamplingMode = _downsamplingMode;
+        invalidateStages(DIRTY_GEOMETRY);
+    }
+
+    /**
+     * Returns the tolerance of the path simplification.
+     * @return The tolerance in px or 0 if the simplification is disabled.
+     */
+    public float getSimplifyTolerance() {
+        return mSimplifyTolerance;
+    }
+
+    /**
+     * Sets the tolerance of the path simplification. If it is greater than 0, the screen coordinates
+     * of every series are simplified with the Douglas-Peucker algorithm before the path is built,
+     * after an optional downsampling. Points which are closer than the tolerance to the line between
+     * their neighbours are left out, so the drawn line deviates at most by the tolerance. Smooth,
+     * oversampled series lose most of their vertices without a visible difference. Cubic lines are
+     * only laid through the remaining points. Band series and stacked series are not simplified.
+     * @param _simplifyTolerance The tolerance as a dp value, 0 disables the simplification.
+     */
+    public void setSimplifyTolerance(float _simplifyTolerance) {
+        mSimplifyTolerance = Utils.dpToPx(_simplifyTolerance);
+        invalidateStages(DIRTY_GEOMETRY);
+    }
+
+    /**
+     * Returns the mode which selects the points of the automatic legend.
+     * @return One of the LEGEND_* constants.
+     */
+    public int getLegendMode() {
+        return mLegendMode;
+    }
+
+    /**
+     * Sets the mode which selects the points of the automatic legend. Columnar series always use
+     * ticks, because they don't store legend bounds for their points.
+     * @param _legendMode One of the LEGEND_* constants.
+     */
+    public void setLegendMode(int _legendMode) {
+        mLegendMode = _legendMode;
+        invalidateStages(DIRTY_LEGEND);
+    }
+
+    /**
+     * Checks if the graph is rendered into cached bitmap tiles.
+     * @return True if the tiled rendering is enabled.
+     */
+    public boolean isUseTiledRendering() {
+        return mUseTiledRendering;
+    }
+
+    /**
+     * Enables the tiled rendering, which is meant for charts that are much wider than the screen,
+     * e.g. inside of a HorizontalScrollView. The graph is rendered on demand into bitmap tiles of a
+     * fixed width and only the tiles in the visible area are drawn. A tile is only rendered again,
+     * if the geometry in its x-range or the appearance of the series changed.
+     * @param _useTiledRendering True if the tiled rendering should be used.
+     */
+    public void setUseTiledRendering(boolean _useTiledRendering) {
+        mUseTiledRendering = _useTiledRendering;
+        if (!mUseTiledRendering) {
+            mTileCache.evictAll();
+        }
+        mTilesDirty = true;
+        invalidateStages(DIRTY_PAINT);
+    }
+
+    /**
+     * Returns the memory budget of the tile cache.
+     * @return The size of the tile cache in kB.
+     */
+    public int getTileCacheSize() {
+        return mTileCacheSize;
+    }
+
+    /**
+     * Sets the memory budget of the tile cache. The least recently drawn tiles are evicted if the
+     * budget is exceeded. The budget should at least hold the tiles of the visible area, otherwise
+     * tiles are rendered again on every frame.
+     * @param _tileCacheSize The size of the tile cache in kB.
+     */
+    public void setTileCacheSize(int _tileCacheSize) {
+        mTileCacheSize = _tileCacheSize;
+        mTileCache.evictAll();
+        mTileCache = createTileCache(mTileCacheSize);
+        invalidateStages(DIRTY_PAINT);
+    }
+
+    /**
+     * Checks if the viewport can be moved and zoomed with gestures.
+     * @return True if the viewport gestures are enabled.
+     */
+    public boolean isUseViewport() {
+        return mUseViewport;
+    }
+
+    /**
+     * Enables or disables the viewport gestures. If they are enabled, dragging moves the viewport,
+     * pinching zooms it and the indicator is moved by tapping.
+     * @param _useViewport True if the viewport gestures should be enabled.
+     */
+    public void setUseViewport(boolean _useViewport) {
+        mUseViewport = _useViewport;
+        if (!_useViewport) {
+            resetViewport();
+        }
+    }
+
+    /**
+     * Returns the zoom of the viewport. A zoom of 1 shows all points.
+     * @return The zoom factor.
+     */
+    public float getZoom() {
+        return mZoom;
+    }
+
+    /**
+     * Sets the zoom of the viewport around the center of the graph.
+     * @param _zoom The zoom factor, at least 1.
+     */
+    public void setZoom(float _zoom) {
+        zoomViewport(_zoom / mZoom, mGraphWidth / 2.f);
+    }
+
+    /**
+     * Returns the distance between the start of the series and the left border of the viewport.
+     * @return The offset in px.
+     */
+    public float getViewportOffset() {
+        return mViewportOffset;
+    }
+
+    /**
+     * Moves the viewport. The offset is limited to the zoomed width of the series.
+     * @param _viewportOffset The distance between the start of the series and the left border of
+     *                        the viewport in px.
+     */
+    public void setViewportOffset(float _viewportOffset) {
+        float offset = clampViewportOffset(_viewportOffset, mZoom);
+        if (offset != mViewportOffset) {
+            mViewportOffset = offset;
+            onViewportChanged();
+        }
+    }
+
+    /**
+     * Resets the viewport, so that all points are visible.
+     */
+    public void resetViewport() {
+        if (mZoom != 1.f || mViewportOffset != 0.f) {
+            mZoom           = 1.f;
+            mViewportOffset = 0.f;
+            onViewportChanged();
+        }
+    }
+
+    /**
+     * Checks if the reveal animation uses a cached layer.
+     * @return True if the reveal animation is cached.
+     */
+    public boolean isUseCachedReveal() {
+        return mUseCachedReveal;
+    }
+
+    /**
+     * If enabled, the graph is rendered once into a hardware layer when the reveal animation starts
+     * and only the scale of the layer is animated. The cost of an animation frame is then
+     * independent of the amount of points. Requires API level 11, older devices use the normal
+     * animation.
+     * @param _useCachedReveal True if the reveal animation should be cached.
+     */
+    public void setUseCachedReveal(boolean _useCachedReveal) {
+        mUseCachedReveal = _useCachedReveal;
+    }
+
+    /**
+     * Checks if the y-axis is scaled to the visible points of the viewport.
+     * @return True if the y-axis is scaled to the viewport.
+     */
+    public boolean isAutoScaleViewport() {
+        return mAutoScaleViewport;
+    }
+
+    /**
+     * Scales the y-axis to the minimum and maximum of the visible points instead of all points,
+     * while the chart is zoomed in.
+     * @param _autoScaleViewport True if the y-axis should be scaled to the viewport.
+     */
+    public void setAutoScaleViewport(boolean _autoScaleViewport) {
+        mAutoScaleViewport = _autoScaleViewport;
+        invalidateStages(DIRTY_SCALE);
+    }
+
+    /**
+     * Checks if the geometry of the series is calculated on a background thread.
+     * @return True if the asynchronous layout is enabled.
+     */
+    public boolean isAsyncLayout() {
+        return mAsyncLayout;
+    }
+
+    /**
+     * Enables or disables the asynchronous layout. If it is enabled, the paths and the legend are
+     * calculated on the layout executor from a copy of the data. The previous geometry is drawn
+     * until the calculation is finished. Incremental updates of ring buffer series are not used
+     * in this mode.
+     * @param _asyncLayout True if the asynchronous layout should be used.
+     */
+    public void setAsyncLayout(boolean _asyncLayout) {
+        mAsyncLayout = _asyncLayout;
+        invalidateStages(DIRTY_SCALE);
+    }
+
+    /**
+     * Checks if large series are shown as a coarse preview first.
+     * @return True if the progressive layout is enabled.
+     */
+    public boolean isProgressiveLayout() {
+        return mProgressiveLayout;
+    }
+
+    /**
+     * Enables or disables the progressive layout, which only has an effect together with the
+     * asynchronous layout. If the series have many more points than the graph is wide in pixels,
+     * a sample with about one point per pixel is calculated and drawn immediately, so the time
+     * until the chart shows the new data doesn't depend on the size of the data. Finer samples and
+     * finally the complete layout are calculated on the layout executor and replace the preview.
+     * The indicator and the legend are updated with the complete layout.
+     * @param _progressiveLayout True if the progressive layout should be used.
+     */
+    public void setProgressiveLayout(boolean _progressiveLayout) {
+        mProgressiveLayout = _progressiveLayout;
+    }
+
+    /**
+     * Returns the executor on which the asynchronous layout is calculated. If no executor was set,
+     * a single background thread which is shared by all charts is used.
+     * @return The layout executor.
+     */
+    public Executor getLayoutExecutor() {
+        if (mLayoutExecutor == null) {
+            mLayoutExecutor = getDefaultLayoutExecutor();
+        }
+        return mLayoutExecutor;
+    }
+
+    /**
+     * Sets the executor on which the asynchronous layout is calculated.
+     * @param _layoutExecutor The layout executor.
+     */
+    public void setLayoutExecutor(Executor _layoutExecutor) {
+        mLayoutExecutor = _layoutExecutor;
     }
 
     /**
@@ -448,6 +872,21 @@ public class ValueLineChart extends BaseChart {
         mLinePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mLinePaint.setStrokeWidth(mLineStroke);
 
+        mTileWidth  = (int) Utils.dpToPx(TILE_WIDTH);
+        mTileCache  = createTileCache(mTileCacheSize);
+        mTileCanvas = new Canvas();
+
+        mMainHandler = new Handler(Looper.getMainLooper());
+        if (Build.VERSION.SDK_INT >= 16) {
+            mChoreographer     = Choreographer.getInstance();
+            mLiveFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long _frameTimeNanos) {
+                    applyPendingAppends();
+                }
+            };
+        }
+
         mLegendPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mLegendPaint.setColor(DEF_LEGEND_COLOR);
         mLegendPaint.setTextSize(mLegendTextSize);
@@ -471,12 +910,23 @@ public class ValueLineChart extends BaseChart {
         mLegend = new Legend(getContext());
         addView(mLegend);
 
+        mGestureDetector = new GestureDetector(getContext(), new ViewportGestureListener());
+        mGestureDetector.setIsLongpressEnabled(false);
+        mScaleDetector = new ScaleGestureDetector(getContext(), new ViewportScaleListener());
+
         mRevealAnimator = ValueAnimator.ofFloat(0, 1);
         mRevealAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
             @Override
             public void onAnimationUpdate(ValueAnimator animation) {
                 mRevealValue = animation.getAnimatedFraction();
 
+                if (mCachedRevealRunning) {
+                    // only the transformation of the cached layer changes, the paths are not drawn again
+                    mGraph.setPivotY(mUseableGraphHeight + mTopPadding - mNegativeOffset);
+                    mGraph.setScaleY(mRevealValue);
+                    return;
+                }
+
                 mScale.reset();
                 mScale.setScale(1, 1.f * mRevealValue, 0, mUseableGraphHeight + mTopPadding - mNegativeOffset);
 
@@ -486,16 +936,25 @@ public class ValueLineChart extends BaseChart {
         mRevealAnimator.addListener(new Animator.AnimatorListener() {
             @Override
             public void onAnimationStart(Animator animation) {
+                if (mUseCachedReveal && !isInEditMode()) {
+                    mCachedRevealRunning = true;
+                    mScale.reset();
+                    mGraph.setPivotX(0);
+                    mGraph.setPivotY(mUseableGraphHeight + mTopPadding - mNegativeOffset);
+                    mGraph.setScaleY(0);
+                    setLayerToHW(mGraph);
+                }
             }
 
             @Override
             public void onAnimationEnd(Animator animation) {
                 mStartedAnimation = false;
+                finishCachedReveal();
             }
 
             @Override
             public void onAnimationCancel(Animator animation) {
-
+                finishCachedReveal();
             }
 
             @Override
@@ -540,207 +999,1391 @@ public class ValueLineChart extends BaseChart {
     @Override
     protected void onDataChanged() {
 
-        if(!mSeries.isEmpty()) {
-            int   seriesCount  = mSeries.size();
-            float maxValue     = 0.f;
-            mNegativeValue     = 0.f;
-            mNegativeOffset    = 0.f;
-            mHasNegativeValues = false;
+        // results of previously requested asynchronous layouts are outdated now
+        mLayoutGeneration++;
+        mPreviewActive = false;
+        mTilesDirty = true;
+        mViewportOffset = clampViewportOffset(mViewportOffset, mZoom);
 
-            // calculate the maximum value present in data
-            for (ValueLineSeries series : mSeries) {
-                for (ValueLinePoint point : series.getSeries()) {
-                    if (point.getValue() > maxValue)
-                        maxValue = point.getValue();
-                    if (point.getValue() < mNegativeValue)
-                        mNegativeValue = point.getValue();
-                }
-            }
+        if (mAsyncLayout && !mSeries.isEmpty()) {
+            requestAsyncLayout();
+            return;
+        }
 
-            // check if the standardvalue is greater than all other values
-            if(mShowStandardValue) {
-                if(mStandardValue > maxValue) {
-                    maxValue = mStandardValue;
-                }
-            }
+        if(!mSeries.isEmpty()) {
+            float heightMultiplier = calculateScale();
+
+            // the coordinates of already calculated points can only be reused, if the y-scale is unchanged
+            boolean scaleChanged = heightMultiplier != mLastHeightMultiplier
+                    || (mUseableGraphHeight + mTopPadding) != mLastBaseline;
+            mLastHeightMultiplier = heightMultiplier;
+            mLastBaseline         = mUseableGraphHeight + mTopPadding;
+
+            layoutSeries(heightMultiplier, scaleChanged);
+            resetFocusedIndices();
+            layoutLegend();
+            initializeIndicator();
+        }
 
-            // check if values below zero were found
-            if(mNegativeValue < 0) {
-                mHasNegativeValues = true;
-                maxValue += (mNegativeValue * -1);
-            }
+        super.onDataChanged();
+        mLegend.invalidate();
+        mGraphOverlay.invalidate();
+    }
 
-            float heightMultiplier  = mUseableGraphHeight / maxValue;
+    /**
+     * Recalculates the given stages. A new scale requires a complete layout pass, while the
+     * geometry, the legend and the indicator text can be calculated again on their own with the
+     * current scale.
+     * @param _Stages Combination of the DIRTY_* flags, including the dependent stages.
+     */
+    @Override
+    protected void onProcessStages(int _Stages) {
+        if ((_Stages & DIRTY_TEXT) != 0) {
+            mLegendPaint.setTextSize(mLegendTextSize);
+            mMaxFontHeight = Utils.calculateMaxTextHeight(mLegendPaint);
+            mIndicatorPaint.setTextSize(mIndicatorTextSize);
+        }
 
-            // calculate the offset
-            if(mHasNegativeValues) {
-                mNegativeOffset = (mNegativeValue * -1) * heightMultiplier;
-            }
+        // the asynchronous layout always calculates the geometry and the legend together
+        boolean layoutPass = (_Stages & DIRTY_SCALE) != 0
+                || (mAsyncLayout && (_Stages & (DIRTY_GEOMETRY | DIRTY_LEGEND)) != 0);
 
-            // calculate the y position for standardValue
-            if(mShowStandardValue) {
-                mStandardValueY = (mUseableGraphHeight + mTopPadding) - (mStandardValue * heightMultiplier);
+        if (layoutPass) {
+            onDataChanged();
+        }
+        else if (!mSeries.isEmpty()) {
+            if ((_Stages & DIRTY_GEOMETRY) != 0) {
+                layoutSeries(mLastHeightMultiplier, true);
+                resetFocusedIndices();
             }
-
-            for (ValueLineSeries series : mSeries) {
-
-                int   seriesPointCount  = series.getSeries().size();
-
-                // check if more than one point is available
-                if (seriesPointCount <= 1) {
-                    Log.w(LOG_TAG, "More than one point should be available!");
+            if ((_Stages & DIRTY_LEGEND) != 0) {
+                if (mUseCustomLegend) {
+                    onLegendDataChanged();
                 }
                 else {
+                    layoutLegend();
+                }
+            }
+        }
 
-                    float widthOffset = (float) mGraphWidth / (float) seriesPointCount;
-                    widthOffset += widthOffset / seriesPointCount;
-                    float currentOffset = 0;
-                    series.setWidthOffset(widthOffset);
-
-                    // used to store first point and set it later as ending point, if a graph fill is selected
-                    float firstX = currentOffset;
-                    float firstY = (mUseableGraphHeight + mTopPadding) - (series.getSeries().get(0).getValue() * heightMultiplier);
-
-                    Path path = new Path();
-                    path.moveTo(firstX, firstY);
-                    series.getSeries().get(0).setCoordinates(new Point2D(firstX, firstY));
-
-                    // If a cubic curve should be drawn then calculate cubic path
-                    // If not then just draw basic lines
-                    if (mUseCubic) {
-                        Point2D P1 = new Point2D();
-                        Point2D P2 = new Point2D();
-                        Point2D P3 = new Point2D();
-
-                        for (int i = 0; i < seriesPointCount; i++) {
-
-                            // Check if the end of the array has been reached and do the last calculation to prevent ArrayOutOfBounds
-                            if ((seriesPointCount - i) < 3) {
-                                P1.setX(currentOffset);
-                                P1.setY((mUseableGraphHeight + mTopPadding) - (series.getSeries().get(i).getValue() * heightMultiplier));
-
-                                P2.setX(mGraphWidth);
-                                P2.setY((mUseableGraphHeight + mTopPadding) - (series.getSeries().get(i + 1).getValue() * heightMultiplier));
-                                calculatePointDiff(P1, P2, P1, mSecondMultiplier);
-
-                                P3.setX(mGraphWidth);
-                                P3.setY((mUseableGraphHeight + mTopPadding) - (series.getSeries().get(i + 1).getValue() * heightMultiplier));
-                                calculatePointDiff(P2, P3, P3, mFirstMultiplier);
+        if ((_Stages & DIRTY_TEXT) != 0 && !layoutPass && !mSeries.isEmpty()) {
+            if (mFocusedIndex < 0 || mFocusedIndex >= mSeries.get(0).getPointCount()) {
+                initializeIndicator();
+            }
+            else {
+                calculateValueTextHeight();
+            }
+        }
 
-                                path.cubicTo(P1.getX(), P1.getY(), P2.getX(), P2.getY(), P3.getX(), P3.getY());
-                                series.getSeries().get(i + 1).setCoordinates(new Point2D(P2.getX(), P2.getY()));
-                                break;
-                            } else {
-                                P1.setX(currentOffset);
-                                P1.setY((mUseableGraphHeight + mTopPadding) - (series.getSeries().get(i).getValue() * heightMultiplier));
+        if ((_Stages & DIRTY_PAINT) != 0) {
+            mTilesDirty = true;
+            invalidate();
+            mGraph.invalidate();
+            mGraphOverlay.invalidate();
+            mLegend.invalidate();
+        }
+    }
 
-                                P2.setX(currentOffset + widthOffset);
-                                P2.setY((mUseableGraphHeight + mTopPadding) - (series.getSeries().get(i + 1).getValue() * heightMultiplier));
-                                calculatePointDiff(P1, P2, P1, mSecondMultiplier);
+    /**
+     * Calculates the y-scale from the extremes of the series and sets the offsets which depend on it.
+     * If the y-axis is scaled to the viewport, only the visible points are considered.
+     * @return The height multiplier.
+     */
+    private float calculateScale() {
+        float maxValue     = 0.f;
+        mNegativeValue     = 0.f;
+        mNegativeOffset    = 0.f;
+        mHasNegativeValues = false;
 
-                                P3.setX(currentOffset + (2 * widthOffset));
-                                P3.setY((mUseableGraphHeight + mTopPadding) - (series.getSeries().get(i + 2).getValue() * heightMultiplier));
-                                calculatePointDiff(P2, P3, P3, mFirstMultiplier);
+        updateXRange();
 
-                                series.getSeries().get(i + 1).setCoordinates(new Point2D(P2.getX(), P2.getY()));
-                            }
+        if (mUseStackedFill) {
+            resetStackSums();
+        }
 
-                            currentOffset += widthOffset;
+        // calculate the maximum value present in data
+        for (ValueLineSeries series : mSeries) {
+            int count = series.getPointCount();
+            if (count == 0) {
+                continue;
+            }
 
-                            path.cubicTo(P1.getX(), P1.getY(), P2.getX(), P2.getY(), P3.getX(), P3.getY());
-                        }
-                    } else {
-                        boolean first = true;
-                        int count = 1;
-                        for (ValueLinePoint point : series.getSeries()) {
-                            if (first) {
-                                first = false;
-                                continue;
-                            }
-                            currentOffset += widthOffset;
-                            if (count == seriesPointCount - 1) {
-                                // if the last offset is smaller than the width, then the offset should be as long as the graph
-                                // to prevent a graph drop
-                                if (currentOffset < mGraphWidth) {
-                                    currentOffset = mGraphWidth;
-                                }
-                            }
-                            point.setCoordinates(new Point2D(currentOffset, (mUseableGraphHeight + mTopPadding) - (point.getValue() * heightMultiplier)));
-                            path.lineTo(point.getCoordinates().getX(), point.getCoordinates().getY());
-                            count++;
-                        }
-                    }
+            int first = 0;
+            int last  = count - 1;
+            if (mAutoScaleViewport && isZoomed()) {
+                XAxis axis = prepareXAxis(series);
+                first = axis.getFirstVisibleIndex(mViewportOffset);
+                last  = axis.getLastVisibleIndex(mViewportOffset, mGraphWidth);
+            }
 
-                    if (mUseOverlapFill || seriesCount == 1) {
-                        path.lineTo(mGraphWidth, mGraphHeight);
-                        path.lineTo(0, mGraphHeight);
-                        path.lineTo(firstX, firstY);
+            // the extremes of the running sums bound every edge of the stacked bands
+            if (mUseStackedFill && !(series instanceof BandValueLineSeries)) {
+                for (int i = first; i <= last; i++) {
+                    float value = series.getValueAt(i);
+                    if (!Float.isNaN(value)) {
+                        mStackSums[i] += value;
                     }
-
-                    series.setPath(path);
+                    if (mStackSums[i] > maxValue)
+                        maxValue = mStackSums[i];
+                    if (mStackSums[i] < mNegativeValue)
+                        mNegativeValue = mStackSums[i];
                 }
+                continue;
             }
 
-            if(!mUseCustomLegend) {
-                int index = 0;
-                int size = mSeries.get(0).getSeries().size();
-
-                // Only calculate if more than one point is available
-                if (size > 1) {
-
-                    for (ValueLinePoint valueLinePoint : mSeries.get(0).getSeries()) {
-                        if (!(index == 0 || index == size - 1)) {
-                            valueLinePoint.setLegendBounds(new RectF(
-                                    valueLinePoint.getCoordinates().getX() - mSeries.get(0).getWidthOffset() / 2,
-                                    0,
-                                    valueLinePoint.getCoordinates().getX() + mSeries.get(0).getWidthOffset() / 2,
-                                    mLegendHeight));
-                        } else {
-                            valueLinePoint.setIgnore(true);
-                        }
+            // the series answer range queries with their own index, if they have one
+            float max = series.getMaxValue(first, last);
+            float min = series.getMinValue(first, last);
+            if (max > maxValue)
+                maxValue = max;
+            if (min < mNegativeValue)
+                mNegativeValue = min;
+        }
 
-                        index++;
-                    }
-                    Utils.calculateLegendInformation(mSeries.get(0).getSeries(), mLeftPadding, mGraphWidth + mLeftPadding, mLegendPaint);
-                }
+        // check if the standardvalue is greater than all other values
+        if(mShowStandardValue) {
+            if(mStandardValue > maxValue) {
+                maxValue = mStandardValue;
             }
+        }
 
-            // set the first point for the indicator
-            if(mShowIndicator && mSeries.size() == 1) {
-                int size = mSeries.get(0).getSeries().size();
-                int index;
+        // check if values below zero were found
+        if(mNegativeValue < 0) {
+            mHasNegativeValues = true;
+            maxValue += (mNegativeValue * -1);
+        }
 
-                // Only calculate if more than one point is available
-                if (size > 1) {
-                    // position the indicator in the middle at the nearest value
-                    if (size == 3) {
-                        index = size / 2;
-                    } else {
-                        index = (size / 2) - 1;
-                    }
+        float heightMultiplier  = mUseableGraphHeight / maxValue;
 
-                    mFocusedPoint = mSeries.get(0).getSeries().get(index);
-                    mTouchedArea.setX(mFocusedPoint.getCoordinates().getX());
-                    mTouchedArea.setY(mFocusedPoint.getCoordinates().getY());
+        // calculate the offset
+        if(mHasNegativeValues) {
+            mNegativeOffset = (mNegativeValue * -1) * heightMultiplier;
+        }
 
-                    calculateValueTextHeight();
-                }
-            }
+        // calculate the y position for standardValue
+        if(mShowStandardValue) {
+            mStandardValueY = (mUseableGraphHeight + mTopPadding) - (mStandardValue * heightMultiplier);
         }
 
-        super.onDataChanged();
-        mLegend.invalidate();
-        mGraphOverlay.invalidate();
+        return heightMultiplier;
     }
 
     /**
-     * Calculates the legend bounds for a custom list of legends.
+     * Removes the layer and the transformation of the graph after a cached reveal animation.
      */
-    protected void onLegendDataChanged() {
+    private void finishCachedReveal() {
+        if (mCachedRevealRunning) {
+            mCachedRevealRunning = false;
+            mGraph.setScaleY(1);
+            setLayerToNone(mGraph);
+        }
+    }
 
-        int   legendCount = mLegendList.size();
-        float margin = (mLegendWidth / legendCount);
-        float currentOffset = 0;
+    /**
+     * Renders the view into a hardware layer, which is only redrawn if the view is invalidated.
+     * @param _View The view which should use a hardware layer.
+     */
+    private void setLayerToHW(View _View) {
+        if (!_View.isInEditMode()) {
+            _View.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        }
+    }
+
+    private void setLayerToNone(View _View) {
+        if (!_View.isInEditMode()) {
+            _View.setLayerType(View.LAYER_TYPE_NONE, null);
+        }
+    }
+
+    /**
+     * Recalculates the geometry of the visible points after the viewport was moved or zoomed. The
+     * y-scale of the last layout pass is kept, unless the y-axis is scaled to the viewport.
+     */
+    private void onViewportChanged() {
+        if (mAsyncLayout && !mSeries.isEmpty()) {
+            // the published geometry is moved along, until the new viewport is calculated
+            submitAsyncLayout(1, true);
+            shiftToViewport();
+            mGraph.invalidate();
+            mGraphOverlay.invalidate();
+            return;
+        }
+
+        if (!mSeries.isEmpty()) {
+            if (mAutoScaleViewport) {
+                mLastHeightMultiplier = calculateScale();
+                mLastBaseline         = mUseableGraphHeight + mTopPadding;
+            }
+            layoutSeries(mLastHeightMultiplier, true);
+            resetFocusedIndices();
+            layoutLegend();
+
+            refocusIndicator();
+        }
+
+        mGraph.invalidate();
+        mLegend.invalidate();
+        mGraphOverlay.invalidate();
+    }
+
+    /**
+     * Keeps the focused point of the first series after the viewport was changed, if it is still
+     * visible, and refocuses the other series. Otherwise the indicator is initialized again.
+     */
+    private void refocusIndicator() {
+        ValueLineSeries series = mSeries.get(0);
+        if (mFocusedIndex < series.getFirstVisibleIndex() || mFocusedIndex > series.getLastVisibleIndex()) {
+            initializeIndicator();
+        } else if (mShowIndicator) {
+            int index = mFocusedIndex;
+            focusAt(getDisplayX(series, index));
+            mFocusedIndex      = index;
+            mFocusedIndices[0] = index;
+            mTouchedArea.setX(getDisplayX(series, index));
+            mTouchedArea.setY(series.getScreenY(index));
+            calculateValueTextHeight();
+        }
+    }
+
+    /**
+     * Moves the published geometry of the asynchronous layout by the distance between its viewport
+     * and the current viewport. A zoomed geometry can't be moved, so it is kept until the geometry
+     * of the current viewport is published.
+     */
+    private void shiftToViewport() {
+        float shift = mZoom == mLayoutZoom ? mViewportOffset - mLayoutViewportOffset : 0;
+        for (ValueLineSeries series : mSeries) {
+            series.setScrollOffset(shift);
+        }
+        mTilesDirty = true;
+    }
+
+    /**
+     * Calculates the coordinates of the visible points and generates the path of every series.
+     * @param _HeightMultiplier The y-scale.
+     * @param _ScaleChanged     True if the y-scale changed since the last layout pass, so that
+     *                          previously calculated coordinates can't be reused.
+     */
+    private void layoutSeries(float _HeightMultiplier, boolean _ScaleChanged) {
+        int     seriesCount = mSeries.size();
+        boolean zoomed      = isZoomed();
+        float   baseline    = mUseableGraphHeight + mTopPadding;
+
+        mTilesDirty = true;
+        updateXRange();
+
+        int stackBaseCount = 0;
+        if (mUseStackedFill) {
+            resetStackSums();
+        }
+
+        for (ValueLineSeries series : mSeries) {
+
+            int   seriesPointCount  = series.getPointCount();
+
+            // check if more than one point is available
+            if (seriesPointCount <= 1) {
+                Log.w(LOG_TAG, "More than one point should be available!");
+                series.setVisibleRange(0, seriesPointCount - 1);
+                continue;
+            }
+
+            XAxis axis        = prepareXAxis(series);
+            float widthOffset = axis.getWidthOffset();
+
+            int firstVisible = axis.getFirstVisibleIndex(mViewportOffset);
+            int lastVisible  = axis.getLastVisibleIndex(mViewportOffset, mGraphWidth);
+            int pointCount   = lastVisible - firstVisible + 1;
+            series.setVisibleRange(firstVisible, lastVisible);
+
+            ensureCapacity(pointCount);
+
+            boolean stacked      = mUseStackedFill && !(series instanceof BandValueLineSeries);
+            boolean useFill      = stacked || mUseOverlapFill || seriesCount == 1;
+            int     firstAppended = -1;
+
+            if (!_ScaleChanged && !zoomed && isScrollable(series, widthOffset)) {
+                firstAppended = scrollCoordinates((RingBufferValueLineSeries) series, _HeightMultiplier);
+            } else {
+                // calculate the coordinates of every visible point
+                for (int i = 0; i < pointCount; i++) {
+                    int   index = firstVisible + i;
+                    float value = series.getValueAt(index);
+
+                    // stacked points are placed on the running sum of the previous series
+                    if (stacked) {
+                        if (!Float.isNaN(value)) {
+                            mStackSums[index] += value;
+                        }
+                        value = mStackSums[index];
+                    }
+
+                    mPointX[i] = axis.getContentX(index) - mViewportOffset;
+                    mPointY[i] = baseline - (value * _HeightMultiplier);
+                    series.setScreenCoordinates(index, mPointX[i], mPointY[i]);
+                }
+
+                series.setScrollOffset(0);
+                if (series instanceof RingBufferValueLineSeries) {
+                    getRingLayout((RingBufferValueLineSeries) series).layoutBase =
+                            ((RingBufferValueLineSeries) series).getEvictedCount();
+                }
+            }
+
+            series.setWidthOffset(widthOffset);
+            if (series instanceof RingBufferValueLineSeries) {
+                RingBufferValueLineSeries ringBuffer = (RingBufferValueLineSeries) series;
+                RingLayout                ringLayout = getRingLayout(ringBuffer);
+                ringLayout.layoutSequence = ringBuffer.getEvictedCount();
+                ringLayout.layoutFull     = ringBuffer.isFull();
+            }
+
+            if (firstAppended >= 0) {
+                RingBufferValueLineSeries ringBuffer = (RingBufferValueLineSeries) series;
+                RingLayout                ringLayout = getRingLayout(ringBuffer);
+
+                // only the appended points have to be added to the existing path
+                if (!mUseCubic && ringLayout.isPathExtendable(useFill)
+                        && !containsGap(ringBuffer, firstAppended, seriesPointCount)) {
+                    extendPath(ringBuffer, ringLayout, firstAppended, useFill);
+                    continue;
+                }
+
+                for (int i = 0; i < seriesPointCount; i++) {
+                    mPointX[i] = series.getScreenX(i);
+                    mPointY[i] = series.getScreenY(i);
+                }
+            }
+
+            if (series instanceof BandValueLineSeries) {
+                layoutBand((BandValueLineSeries) series, firstVisible, pointCount, baseline, _HeightMultiplier);
+                continue;
+            }
+
+            // reduce the points which will be part of the path, if the series has more
+            // points than pixels are available
+            int   vertexCount = pointCount;
+            float[] vertexX   = mPointX;
+            float[] vertexY   = mPointY;
+
+            // stacked outlines have to keep every point, otherwise neighbouring outlines could cross
+            if (mDownsamplingMode != DOWNSAMPLING_NONE && pointCount > mGraphWidth && !stacked) {
+                vertexCount = downsample(mDownsamplingMode, mPointX, mPointY, pointCount, mGraphWidth,
+                        mSampleIndices, mSampleX, mSampleY);
+                vertexX = mSampleX;
+                vertexY = mSampleY;
+            }
+
+            if (mSimplifyTolerance > 0 && !stacked) {
+                vertexCount = simplify(vertexX, vertexY, vertexCount, mSimplifyTolerance,
+                        mSampleIndices, mSampleX, mSampleY);
+                vertexX = mSampleX;
+                vertexY = mSampleY;
+            }
+
+            // stroked linear series are drawn as a batch of line segments, only cubic and
+            // filled series need a path
+            if (!mUseCubic && !useFill) {
+                series.getPath().rewind();
+                fillLines(series, vertexX, vertexY, vertexCount);
+                if (series instanceof RingBufferValueLineSeries) {
+                    getRingLayout((RingBufferValueLineSeries) series).setPathExtendable(false, useFill);
+                }
+                continue;
+            }
+            series.setLines(series.getLines(), 0);
+
+            if (stacked) {
+                if (stackBaseCount > 0) {
+                    buildBand(series.getPath(), vertexX, vertexY, vertexCount, mStackBaseX, mStackBaseY,
+                            stackBaseCount, mUseCubic);
+                } else {
+                    buildOutline(series.getPath(), vertexX, vertexY, vertexCount, mUseCubic, true,
+                            mFirstMultiplier, mSecondMultiplier, true, mGraphHeight);
+                }
+
+                // the outline is the lower edge of the next band
+                if (mStackBaseX == null || mStackBaseX.length < vertexCount) {
+                    mStackBaseX = new float[vertexCount];
+                    mStackBaseY = new float[vertexCount];
+                }
+                System.arraycopy(vertexX, 0, mStackBaseX, 0, vertexCount);
+                System.arraycopy(vertexY, 0, mStackBaseY, 0, vertexCount);
+                stackBaseCount = vertexCount;
+
+                if (series instanceof RingBufferValueLineSeries) {
+                    getRingLayout((RingBufferValueLineSeries) series).setPathExtendable(false, useFill);
+                }
+                continue;
+            }
+
+            boolean gaps = buildOutline(series.getPath(), vertexX, vertexY, vertexCount, mUseCubic,
+                    mUseMonotoneCubic, mFirstMultiplier, mSecondMultiplier, useFill, mGraphHeight);
+
+            if (series instanceof RingBufferValueLineSeries) {
+                RingLayout ringLayout = getRingLayout((RingBufferValueLineSeries) series);
+                // the last point is moved to the graph end, which may only be ignored
+                // for extended paths if the distance is not visible
+                boolean extendable = !gaps && !mUseCubic && !zoomed && vertexCount == seriesPointCount
+                        && mGraphWidth - (seriesPointCount - 1) * widthOffset < 1;
+
+                // filled series need the open outline to be extended later on
+                if (extendable && useFill) {
+                    buildOutline(ringLayout.outlinePath, vertexX, vertexY, vertexCount, false, false,
+                            0, 0, false, mGraphHeight);
+                }
+                ringLayout.setPathExtendable(extendable, useFill);
+            }
+        }
+    }
+
+    /**
+     * Calculates the automatic legend for the visible points of the first series.
+     */
+    private void layoutLegend() {
+        if (mUseCustomLegend) {
+            return;
+        }
+
+        ValueLineSeries series = mSeries.get(0);
+        int             size   = series.getPointCount();
+
+        // Only calculate if more than one point is available
+        if (size <= 1) {
+            mSeriesLegend = new ArrayList<BaseModel>();
+            return;
+        }
+
+        if (usesTickLegend(series)) {
+            mSeriesLegend = calculateTickLegend(series);
+        } else {
+            int first = series.getFirstVisibleIndex();
+            int last  = series.getLastVisibleIndex();
+
+            for (int index = first; index <= last; index++) {
+                ValueLinePoint valueLinePoint = series.getSeries().get(index);
+
+                if (!(index == 0 || index == size - 1)) {
+                    float x = getDisplayX(series, index);
+                    RectF legendBounds = valueLinePoint.getLegendBounds();
+
+                    if (legendBounds == null) {
+                        legendBounds = new RectF();
+                        valueLinePoint.setLegendBounds(legendBounds);
+                    }
+                    legendBounds.set(x - series.getWidthOffset() / 2, 0, x + series.getWidthOffset() / 2, mLegendHeight);
+                    valueLinePoint.setIgnore(false);
+                } else {
+                    valueLinePoint.setIgnore(true);
+                }
+            }
+            mSeriesLegend = series.getSeries().subList(first, last + 1);
+        }
+
+        Utils.calculateLegendInformation(mSeriesLegend, mLeftPadding, mGraphWidth + mLeftPadding, mLegendPaint);
+    }
+
+    /**
+     * Sets the first point for the indicator in the middle of the visible points.
+     */
+    private void initializeIndicator() {
+        if(mShowIndicator && !mSeries.isEmpty()) {
+            ValueLineSeries series = mSeries.get(0);
+            int             size   = series.getLastVisibleIndex() - series.getFirstVisibleIndex() + 1;
+            int index;
+
+            // Only calculate if more than one point is available
+            if (series.getPointCount() > 1) {
+                // position the indicator in the middle at the nearest value
+                if (size == 3) {
+                    index = size / 2;
+                } else {
+                    index = Math.max((size / 2) - 1, 0);
+                }
+                index += series.getFirstVisibleIndex();
+
+                // the other series focus the point which is nearest to the point of the first series
+                focusAt(getDisplayX(series, index));
+                mFocusedIndex      = index;
+                mFocusedIndices[0] = index;
+                mTouchedArea.setX(getDisplayX(series, index));
+                mTouchedArea.setY(series.getScreenY(index));
+
+                calculateValueTextHeight();
+            }
+        }
+    }
+
+    /**
+     * Multiplies the zoom with the given factor, so that the content at the focus stays in place.
+     * @param _Factor The zoom factor.
+     * @param _FocusX The x-coordinate on the screen which should stay in place.
+     */
+    private void zoomViewport(float _Factor, float _FocusX) {
+        int maxCount = 0;
+        for (ValueLineSeries series : mSeries) {
+            maxCount = Math.max(maxCount, series.getPointCount());
+        }
+
+        float maxZoom = Math.max(1.f, (float) maxCount / MIN_VISIBLE_POINTS);
+        float zoom    = Math.max(1.f, Math.min(mZoom * _Factor, maxZoom));
+
+        if (zoom != mZoom) {
+            float contentX  = mViewportOffset + _FocusX;
+            mViewportOffset = clampViewportOffset(contentX * (zoom / mZoom) - _FocusX, zoom);
+            mZoom           = zoom;
+            onViewportChanged();
+        }
+    }
+
+    /**
+     * Limits the viewport offset to the zoomed width of the series.
+     * @param _Offset The requested offset.
+     * @param _Zoom   The zoom factor.
+     * @return The limited offset.
+     */
+    private float clampViewportOffset(float _Offset, float _Zoom) {
+        return Math.max(0.f, Math.min(_Offset, mGraphWidth * (_Zoom - 1.f)));
+    }
+
+    /**
+     * Checks if the viewport shows only a part of the series.
+     * @return True if the chart is zoomed in.
+     */
+    private boolean isZoomed() {
+        return mZoom > 1.f;
+    }
+
+    /**
+     * Calculates the distance between two points of a series.
+     * @param _Count        Amount of points in the series.
+     * @param _ContentWidth Width of the content, which is the graph width multiplied with the zoom.
+     * @return The distance in px.
+     */
+    private static float calculateWidthOffset(int _Count, float _ContentWidth) {
+        float widthOffset = _ContentWidth / (float) _Count;
+        return widthOffset + widthOffset / _Count;
+    }
+
+    /**
+     * Calculates the range of the x-values of all series with explicit x-values. These series share
+     * one linear transform, so that their points stay comparable.
+     */
+    private void updateXRange() {
+        mXMin = Double.POSITIVE_INFINITY;
+        mXMax = Double.NEGATIVE_INFINITY;
+
+        for (ValueLineSeries series : mSeries) {
+            if (series instanceof XYValueLineSeries && series.getPointCount() > 0) {
+                XYValueLineSeries xySeries = (XYValueLineSeries) series;
+                mXMin = Math.min(mXMin, xySeries.getX(0));
+                mXMax = Math.max(mXMax, xySeries.getX(series.getPointCount() - 1));
+            }
+        }
+    }
+
+    /**
+     * Prepares the reused x-axis for the given series with the current zoom and x-range.
+     * @param _Series The series which should be placed.
+     * @return The prepared x-axis.
+     */
+    private XAxis prepareXAxis(ValueLineSeries _Series) {
+        if (_Series instanceof XYValueLineSeries) {
+            mXAxis.setExplicit(((XYValueLineSeries) _Series).getXValues(), _Series.getPointCount(),
+                    mGraphWidth * mZoom, mXMin, mXMax);
+        } else {
+            mXAxis.setUniform(_Series.getPointCount(), mGraphWidth * mZoom);
+        }
+        return mXAxis;
+    }
+
+    /**
+     * Prepares the given x-axis for a series of the snapshot.
+     * @param _Axis     The x-axis which should be prepared.
+     * @param _Snapshot The snapshot of the data.
+     * @param _Series   Index of the series.
+     */
+    private static void prepareXAxis(XAxis _Axis, LayoutSnapshot _Snapshot, int _Series) {
+        float contentWidth = _Snapshot.graphWidth * _Snapshot.zoom;
+        int   count        = _Snapshot.counts[_Series];
+
+        if (_Snapshot.xValues[_Series] != null) {
+            _Axis.setExplicit(_Snapshot.xValues[_Series], count, contentWidth, _Snapshot.xMin, _Snapshot.xMax);
+        } else {
+            _Axis.setUniform(count, contentWidth);
+        }
+    }
+
+    /**
+     * Returns the x-coordinate of a point in the content, which is the graph width multiplied with
+     * the zoom. The last point is always placed at the end of the content to prevent a graph drop.
+     * @param _Index        Index of the point.
+     * @param _Count        Amount of points in the series.
+     * @param _WidthOffset  Distance between two points.
+     * @param _ContentWidth Width of the content.
+     * @return The x-coordinate in px.
+     */
+    private static float getContentX(int _Index, int _Count, float _WidthOffset, float _ContentWidth) {
+        float x = _Index * _WidthOffset;
+        if (_Index == _Count - 1 && x < _ContentWidth) {
+            x = _ContentWidth;
+        }
+        return x;
+    }
+
+    /**
+     * Returns the index of the first point which is needed to draw the viewport. This is the last
+     * point left of the viewport, so that the line reaches the left border.
+     */
+    private static int getFirstVisibleIndex(int _Count, float _WidthOffset, float _ViewportOffset) {
+        return Math.max(0, Math.min(_Count - 1, (int) Math.floor(_ViewportOffset / _WidthOffset)));
+    }
+
+    /**
+     * Returns the index of the last point which is needed to draw the viewport. This is the first
+     * point right of the viewport, so that the line reaches the right border.
+     */
+    private static int getLastVisibleIndex(int _Count, float _WidthOffset, float _ViewportOffset, int _GraphWidth) {
+        return Math.max(0, Math.min(_Count - 1, (int) Math.ceil((_ViewportOffset + _GraphWidth) / _WidthOffset)));
+    }
+
+    /**
+     * Requests the asynchronous layout of the current data. If the progressive layout is enabled
+     * and the series are much larger than the graph, a coarse preview is calculated and shown
+     * immediately. The finer previews and the complete layout are calculated by the layout executor
+     * from the snapshot of the complete data, which shares the arrays of columnar series. The values
+     * of other series are copied by the layout executor as well, so only the preview samples are
+     * read on the UI thread.
+     */
+    private void requestAsyncLayout() {
+        mDataLayoutPending = true;
+
+        int stride = mProgressiveLayout ? calculatePreviewStride() : 1;
+
+        if (stride <= 1) {
+            submitAsyncLayout(1, false);
+            return;
+        }
+
+        LayoutSnapshot preview = createSnapshot();
+        for (int i = 0; i < preview.series.length; i++) {
+            sampleSeries(preview, i, stride);
+        }
+        applyPreview(calculateLayout(preview, obtainLayoutBuffers()));
+
+        submitAsyncLayout(stride / PROGRESSIVE_LEVEL_FACTOR, false);
+    }
+
+    /**
+     * Takes a snapshot of the current data and settings and hands it to the layout executor. If a
+     * snapshot is still waiting for the executor, it is replaced, so that only the newest data
+     * is calculated. Columnar series share their arrays with the snapshot and only copy them, when
+     * a shared value is changed afterwards. The values of other series are stored in mutable point
+     * objects, so they are copied by the layout executor with {@link #copyPointValues(LayoutSnapshot)}.
+     * @param _PreviewStride Stride of the finest preview which should be calculated before the
+     *                       complete layout, or 1 if no preview is needed.
+     * @param _ViewportOnly  True if only the viewport changed, so that the focused point is kept.
+     */
+    private void submitAsyncLayout(int _PreviewStride, boolean _ViewportOnly) {
+        LayoutSnapshot snapshot = createSnapshot();
+        snapshot.previewStride  = _PreviewStride;
+
+        // a pending data change must not be handled as a viewport change
+        snapshot.viewportOnly = _ViewportOnly && !mDataLayoutPending;
+
+        for (int i = 0; i < snapshot.series.length; i++) {
+            ValueLineSeries series = snapshot.series[i];
+
+            if (series instanceof ColumnarValueLineSeries) {
+                ColumnarValueLineSeries columnar = (ColumnarValueLineSeries) series;
+                snapshot.counts[i] = columnar.shareValues();
+                snapshot.values[i] = columnar.getValues();
+
+                if (series instanceof XYValueLineSeries) {
+                    snapshot.xValues[i] = ((XYValueLineSeries) series).getXValues();
+                }
+                if (series instanceof BandValueLineSeries) {
+                    snapshot.lowerValues[i] = ((BandValueLineSeries) series).getLowerValues();
+                    snapshot.upperValues[i] = ((BandValueLineSeries) series).getUpperValues();
+                }
+            }
+        }
+
+        // the labels are requested on the UI thread, because label providers don't have to be thread-safe
+        ValueLineSeries first = snapshot.series[0];
+        int             size  = first.getPointCount();
+        if (!mUseCustomLegend && size > 1) {
+            // the visible range has to be known before the candidates can be selected. The published
+            // range is restored afterwards, because the coordinates are calculated later on.
+            int   publishedFirst = first.getFirstVisibleIndex();
+            int   publishedLast  = first.getLastVisibleIndex();
+            XAxis axis           = prepareXAxis(first);
+            first.setVisibleRange(axis.getFirstVisibleIndex(mViewportOffset),
+                    axis.getLastVisibleIndex(mViewportOffset, mGraphWidth));
+
+            int stride    = getLegendStride(first);
+            int candidate = getFirstLegendCandidate(first, stride);
+            int last      = getLastLegendCandidate(first);
+            int count     = last >= candidate ? (last - candidate) / stride + 1 : 0;
+
+            snapshot.legendStride  = stride;
+            snapshot.legendIndices = new int[count];
+            snapshot.legendLabels  = new String[count];
+            snapshot.legendPaint   = new Paint(mLegendPaint);
+
+            for (int i = 0; i < count; i++) {
+                snapshot.legendIndices[i] = candidate + i * stride;
+                snapshot.legendLabels[i]  = first.getLegendLabelAt(candidate + i * stride);
+            }
+            first.setVisibleRange(publishedFirst, publishedLast);
+        }
+
+        if (mPendingSnapshot.getAndSet(snapshot) == null) {
+            getLayoutExecutor().execute(mLayoutTask);
+        }
+    }
+
+    /**
+     * Copies the values of the series, which store them in point objects, into the snapshot. This is
+     * called on the layout executor, while the series may be changed on the UI thread. Every data
+     * change increments the layout generation, so the copy is dropped, if the generation changed,
+     * and a result which was calculated from a copy that overlapped a change is never published. The
+     * copies of the last snapshot are reused, as long as the generation is unchanged, so that a
+     * moved viewport doesn't copy the values again.
+     * @param _Snapshot The snapshot, which holds no values for the point based series yet.
+     * @return False if the data changed since the snapshot was taken.
+     */
+    private boolean copyPointValues(LayoutSnapshot _Snapshot) {
+        LayoutSnapshot copied = mCopiedSnapshot.get();
+        if (copied != null && copied.generation != _Snapshot.generation) {
+            copied = null;
+        }
+
+        try {
+            for (int i = 0; i < _Snapshot.series.length; i++) {
+                ValueLineSeries series = _Snapshot.series[i];
+                if (_Snapshot.values[i] != null) {
+                    continue;
+                }
+
+                if (copied != null && i < copied.series.length && copied.series[i] == series) {
+                    _Snapshot.counts[i] = copied.counts[i];
+                    _Snapshot.values[i] = copied.values[i];
+                    continue;
+                }
+
+                float[] values = new float[series.getPointCount()];
+                for (int j = 0; j < values.length; j++) {
+                    values[j] = series.getValueAt(j);
+                }
+                _Snapshot.counts[i] = values.length;
+                _Snapshot.values[i] = values;
+            }
+        } catch (RuntimeException e) {
+            // the series was changed while it was copied, the changed data is calculated with the
+            // next update
+            return false;
+        }
+
+        if (_Snapshot.generation != mLayoutGeneration) {
+            return false;
+        }
+        mCopiedSnapshot.set(_Snapshot);
+        return true;
+    }
+
+    /**
+     * Creates a snapshot of the current settings. The data arrays are allocated, but not filled.
+     * @return The snapshot.
+     */
+    private LayoutSnapshot createSnapshot() {
+        int           seriesCount = mSeries.size();
+        LayoutSnapshot snapshot   = new LayoutSnapshot();
+
+        snapshot.generation         = mLayoutGeneration;
+        snapshot.series             = mSeries.toArray(new ValueLineSeries[seriesCount]);
+        snapshot.counts             = new int[seriesCount];
+        snapshot.values             = new float[seriesCount][];
+        snapshot.xValues            = new double[seriesCount][];
+        snapshot.lowerValues        = new float[seriesCount][];
+        snapshot.upperValues        = new float[seriesCount][];
+        snapshot.graphWidth         = mGraphWidth;
+        snapshot.graphHeight        = mGraphHeight;
+        snapshot.useableGraphHeight = mUseableGraphHeight;
+        snapshot.topPadding         = mTopPadding;
+        snapshot.leftPadding        = mLeftPadding;
+        snapshot.legendHeight       = mLegendHeight;
+        snapshot.useCubic           = mUseCubic;
+        snapshot.useMonotoneCubic   = mUseMonotoneCubic;
+        snapshot.useFill            = mUseStackedFill || mUseOverlapFill || seriesCount == 1;
+        snapshot.useStackedFill     = mUseStackedFill;
+        snapshot.firstMultiplier    = mFirstMultiplier;
+        snapshot.secondMultiplier   = mSecondMultiplier;
+        snapshot.showStandardValue  = mShowStandardValue;
+        snapshot.standardValue      = mStandardValue;
+        snapshot.downsamplingMode   = mDownsamplingMode;
+        snapshot.simplifyTolerance  = mSimplifyTolerance;
+        snapshot.zoom               = mZoom;
+        snapshot.viewportOffset     = mViewportOffset;
+        snapshot.autoScaleViewport  = mAutoScaleViewport;
+
+        updateXRange();
+        snapshot.xMin               = mXMin;
+        snapshot.xMax               = mXMax;
+
+        return snapshot;
+    }
+
+    /**
+     * Calculates the stride of the coarse preview, so that the preview has about as many points as
+     * the graph content is wide in pixels.
+     * @return The stride or 1 if the series are small enough to be calculated completely.
+     */
+    private int calculatePreviewStride() {
+        int maxCount = 0;
+        for (ValueLineSeries series : mSeries) {
+            maxCount = Math.max(maxCount, series.getPointCount());
+        }
+
+        int budget = Math.max((int) (mGraphWidth * mZoom), MIN_DOWNSAMPLING_THRESHOLD);
+        if (maxCount < budget * PROGRESSIVE_LEVEL_FACTOR) {
+            return 1;
+        }
+        return (maxCount + budget - 1) / budget;
+    }
+
+    /**
+     * Stores every n-th point of a series in the snapshot. The last point is always part of the
+     * sample, so that the sampled series covers the same x-range. A common stride keeps the points
+     * of stacked series aligned.
+     * @param _Snapshot The snapshot which should hold the sampled data.
+     * @param _Series   Index of the series.
+     * @param _Stride   Distance between two sampled points.
+     */
+    private static void sampleSeries(LayoutSnapshot _Snapshot, int _Series, int _Stride) {
+        ValueLineSeries series = _Snapshot.series[_Series];
+        int             count  = series.getPointCount();
+        int             size   = count > 0 ? (count - 1 + _Stride - 1) / _Stride + 1 : 0;
+
+        float[]  values = new float[size];
+        double[] x      = series instanceof XYValueLineSeries ? new double[size] : null;
+        float[]  lower  = series instanceof BandValueLineSeries ? new float[size] : null;
+        float[]  upper  = series instanceof BandValueLineSeries ? new float[size] : null;
+
+        for (int i = 0; i < size; i++) {
+            int index = Math.min(i * _Stride, count - 1);
+            values[i] = series.getValueAt(index);
+            if (x != null) {
+                x[i] = ((XYValueLineSeries) series).getXValues()[index];
+            }
+            if (lower != null) {
+                lower[i] = ((BandValueLineSeries) series).getLowerAt(index);
+                upper[i] = ((BandValueLineSeries) series).getUpperAt(index);
+            }
+        }
+
+        _Snapshot.counts[_Series]      = size;
+        _Snapshot.values[_Series]      = values;
+        _Snapshot.xValues[_Series]     = x;
+        _Snapshot.lowerValues[_Series] = lower;
+        _Snapshot.upperValues[_Series] = upper;
+    }
+
+    /**
+     * Creates a copy of a snapshot with every n-th point of the data. This is called on the layout
+     * executor. The legend is left out, because previews keep the current legend.
+     * @param _Snapshot The snapshot of the complete data.
+     * @param _Stride   Distance between two sampled points.
+     * @return The sampled snapshot.
+     */
+    private static LayoutSnapshot sampleSnapshot(LayoutSnapshot _Snapshot, int _Stride) {
+        LayoutSnapshot sampled = _Snapshot.copy();
+        int            count   = _Snapshot.values.length;
+
+        sampled.counts        = new int[count];
+        sampled.values        = new float[count][];
+        sampled.xValues       = new double[count][];
+        sampled.lowerValues   = new float[count][];
+        sampled.upperValues   = new float[count][];
+        sampled.legendLabels  = null;
+        sampled.legendIndices = null;
+
+        for (int s = 0; s < count; s++) {
+            int size = _Snapshot.counts[s];
+
+            sampled.counts[s]      = size > 0 ? (size - 1 + _Stride - 1) / _Stride + 1 : 0;
+            sampled.values[s]      = sample(_Snapshot.values[s], size, _Stride);
+            sampled.lowerValues[s] = sample(_Snapshot.lowerValues[s], size, _Stride);
+            sampled.upperValues[s] = sample(_Snapshot.upperValues[s], size, _Stride);
+
+            double[] x = _Snapshot.xValues[s];
+            if (x != null) {
+                sampled.xValues[s] = new double[sampled.counts[s]];
+                for (int i = 0; i < sampled.counts[s]; i++) {
+                    sampled.xValues[s][i] = x[Math.min(i * _Stride, size - 1)];
+                }
+            }
+        }
+        return sampled;
+    }
+
+    /**
+     * Returns every n-th value of the array including the last value.
+     * @param _Values The values or null.
+     * @param _Count  Amount of valid values in the array.
+     * @param _Stride Distance between two sampled values.
+     * @return The sampled values or null.
+     */
+    private static float[] sample(float[] _Values, int _Count, int _Stride) {
+        if (_Values == null) {
+            return null;
+        }
+
+        int     size   = _Count > 0 ? (_Count - 1 + _Stride - 1) / _Stride + 1 : 0;
+        float[] result = new float[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = _Values[Math.min(i * _Stride, _Count - 1)];
+        }
+        return result;
+    }
+
+    /**
+     * Calculates the geometry of all series of the snapshot. This is called on the layout executor
+     * and must not access the chart or the series.
+     * @param _Snapshot The data which should be calculated.
+     * @param _Buffers  The buffers which hold the calculated geometry.
+     * @return The calculated geometry.
+     */
+    private static LayoutResult calculateLayout(LayoutSnapshot _Snapshot, LayoutBuffers _Buffers) {
+        int          seriesCount = _Snapshot.values.length;
+        LayoutResult result      = new LayoutResult();
+        float        maxValue    = 0.f;
+        float        minValue    = 0.f;
+
+        _Buffers.ensureSeriesCount(seriesCount);
+
+        result.generation   = _Snapshot.generation;
+        result.series       = _Snapshot.series;
+        result.buffers      = _Buffers;
+        result.viewportOnly = _Snapshot.viewportOnly;
+        result.screenX      = _Buffers.screenX;
+        result.screenY      = _Buffers.screenY;
+        result.paths        = _Buffers.paths;
+        result.lines        = _Buffers.lines;
+        result.lineCounts   = new int[seriesCount];
+        result.widthOffsets = new float[seriesCount];
+        result.firstVisible = new int[seriesCount];
+        result.lastVisible  = new int[seriesCount];
+        result.zoom           = _Snapshot.zoom;
+        result.viewportOffset = _Snapshot.viewportOffset;
+
+        XAxis axis = new XAxis();
+
+        // the running sums of a stacked chart
+        float[] sums = null;
+        if (_Snapshot.useStackedFill) {
+            int maxCount = 0;
+            for (int count : _Snapshot.counts) {
+                maxCount = Math.max(maxCount, count);
+            }
+            sums = _Buffers.sums = ensureLayoutBuffer(_Buffers.sums, maxCount);
+            Arrays.fill(sums, 0.f);
+        }
+
+        // calculate the maximum value present in data
+        for (int s = 0; s < seriesCount; s++) {
+            float[] values = _Snapshot.values[s];
+            int     first  = 0;
+            int     last   = _Snapshot.counts[s] - 1;
+            if (_Snapshot.autoScaleViewport && _Snapshot.zoom > 1.f && last >= 0) {
+                prepareXAxis(axis, _Snapshot, s);
+                first = axis.getFirstVisibleIndex(_Snapshot.viewportOffset);
+                last  = axis.getLastVisibleIndex(_Snapshot.viewportOffset, _Snapshot.graphWidth);
+            }
+
+            float[] lower   = _Snapshot.lowerValues[s];
+            float[] upper   = _Snapshot.upperValues[s];
+            boolean stacked = sums != null && upper == null;
+
+            for (int i = first; i <= last; i++) {
+                float value = values[i];
+                if (stacked) {
+                    if (!Float.isNaN(value)) {
+                        sums[i] += value;
+                    }
+                    value = sums[i];
+                }
+
+                if (value > maxValue)
+                    maxValue = value;
+                if (value < minValue)
+                    minValue = value;
+                if (upper != null && upper[i] > maxValue)
+                    maxValue = upper[i];
+                if (lower != null && lower[i] < minValue)
+                    minValue = lower[i];
+            }
+        }
+
+        if (sums != null) {
+            Arrays.fill(sums, 0.f);
+        }
+        float[] baseX     = null;
+        float[] baseY     = null;
+        int     baseCount = 0;
+
+        if (_Snapshot.showStandardValue && _Snapshot.standardValue > maxValue) {
+            maxValue = _Snapshot.standardValue;
+        }
+        if (minValue < 0) {
+            maxValue += (minValue * -1);
+        }
+
+        float heightMultiplier = _Snapshot.useableGraphHeight / maxValue;
+        float baseline         = _Snapshot.useableGraphHeight + _Snapshot.topPadding;
+
+        result.heightMultiplier  = heightMultiplier;
+        result.baseline          = baseline;
+        result.negativeValue     = minValue;
+        result.hasNegativeValues = minValue < 0;
+        result.negativeOffset    = minValue < 0 ? (minValue * -1) * heightMultiplier : 0.f;
+        result.standardValueY    = baseline - (_Snapshot.standardValue * heightMultiplier);
+
+        for (int s = 0; s < seriesCount; s++) {
+            float[] values = _Snapshot.values[s];
+            int     count  = _Snapshot.counts[s];
+            Path    path   = _Buffers.paths[s];
+
+            // the buffers may still hold the geometry of an earlier pass. Every series gets the
+            // path and the line array of these buffers, so it doesn't keep the ones of older buffers.
+            path.rewind();
+            _Buffers.lines[s]     = ensureLayoutBuffer(_Buffers.lines[s], 0);
+            result.lastVisible[s] = -1;
+
+            if (count <= 1) {
+                Log.w(LOG_TAG, "More than one point should be available!");
+                continue;
+            }
+
+            prepareXAxis(axis, _Snapshot, s);
+            float widthOffset = axis.getWidthOffset();
+
+            int firstVisible = axis.getFirstVisibleIndex(_Snapshot.viewportOffset);
+            int lastVisible  = axis.getLastVisibleIndex(_Snapshot.viewportOffset, _Snapshot.graphWidth);
+            int pointCount   = lastVisible - firstVisible + 1;
+
+            // only the visible points get coordinates, the buffers start with the first visible point
+            float[] vertexX = _Buffers.screenX[s] = ensureLayoutBuffer(_Buffers.screenX[s], pointCount);
+            float[] vertexY = _Buffers.screenY[s] = ensureLayoutBuffer(_Buffers.screenY[s], pointCount);
+
+            float[] lower   = _Snapshot.lowerValues[s];
+            float[] upper   = _Snapshot.upperValues[s];
+            boolean stacked = sums != null && upper == null;
+
+            for (int i = 0; i < pointCount; i++) {
+                int   index = firstVisible + i;
+                float value = values[index];
+                if (stacked) {
+                    if (!Float.isNaN(value)) {
+                        sums[index] += value;
+                    }
+                    value = sums[index];
+                }
+
+                vertexX[i] = axis.getContentX(index) - _Snapshot.viewportOffset;
+                vertexY[i] = baseline - (value * heightMultiplier);
+            }
+
+            result.firstVisible[s] = firstVisible;
+            result.lastVisible[s]  = lastVisible;
+            result.widthOffsets[s] = widthOffset;
+
+            if (upper != null) {
+                float[] upperY = _Buffers.upperY = ensureLayoutBuffer(_Buffers.upperY, pointCount);
+                float[] lowerY = _Buffers.lowerY = ensureLayoutBuffer(_Buffers.lowerY, pointCount);
+                for (int i = 0; i < pointCount; i++) {
+                    upperY[i] = baseline - (upper[firstVisible + i] * heightMultiplier);
+                    lowerY[i] = baseline - (lower[firstVisible + i] * heightMultiplier);
+                }
+
+                _Buffers.lines[s]    = ensureLayoutBuffer(_Buffers.lines[s], Math.max(pointCount - 1, 0) * 4);
+                result.lineCounts[s] = toLines(vertexX, vertexY, pointCount, _Buffers.lines[s]);
+                buildEnvelope(path, vertexX, upperY, lowerY, pointCount);
+                continue;
+            }
+
+            int vertexCount = pointCount;
+
+            // stacked outlines have to keep every point, otherwise neighbouring outlines could cross
+            if (_Snapshot.downsamplingMode != DOWNSAMPLING_NONE && pointCount > _Snapshot.graphWidth && !stacked) {
+                float[] sampleX = _Buffers.sampleX = ensureLayoutBuffer(_Buffers.sampleX, pointCount);
+                float[] sampleY = _Buffers.sampleY = ensureLayoutBuffer(_Buffers.sampleY, pointCount);
+                _Buffers.indices = ensureLayoutBuffer(_Buffers.indices, pointCount);
+                vertexCount = downsample(_Snapshot.downsamplingMode, vertexX, vertexY, pointCount, _Snapshot.graphWidth,
+                        _Buffers.indices, sampleX, sampleY);
+                vertexX = sampleX;
+                vertexY = sampleY;
+            }
+
+            if (_Snapshot.simplifyTolerance > 0 && !stacked) {
+                // the coordinates are published, so the result is stored in the sample buffers,
+                // which may already hold the vertices
+                float[] sampleX = _Buffers.sampleX = ensureLayoutBuffer(_Buffers.sampleX, vertexCount);
+                float[] sampleY = _Buffers.sampleY = ensureLayoutBuffer(_Buffers.sampleY, vertexCount);
+                _Buffers.indices = ensureLayoutBuffer(_Buffers.indices, vertexCount);
+                vertexCount = simplify(vertexX, vertexY, vertexCount, _Snapshot.simplifyTolerance,
+                        _Buffers.indices, sampleX, sampleY);
+                vertexX = sampleX;
+                vertexY = sampleY;
+            }
+
+            if (!_Snapshot.useCubic && !_Snapshot.useFill) {
+                _Buffers.lines[s]    = ensureLayoutBuffer(_Buffers.lines[s], Math.max(vertexCount - 1, 0) * 4);
+                result.lineCounts[s] = toLines(vertexX, vertexY, vertexCount, _Buffers.lines[s]);
+                continue;
+            }
+
+            if (stacked) {
+                if (baseCount > 0) {
+                    buildBand(path, vertexX, vertexY, vertexCount, baseX, baseY, baseCount, _Snapshot.useCubic);
+                } else {
+                    buildOutline(path, vertexX, vertexY, vertexCount, _Snapshot.useCubic, true,
+                            _Snapshot.firstMultiplier, _Snapshot.secondMultiplier, true, _Snapshot.graphHeight);
+                }
+
+                // the outline is the lower edge of the next band. Stacked series aren't reduced, so
+                // the vertices are the coordinates of the series, which aren't overwritten later on.
+                baseX     = vertexX;
+                baseY     = vertexY;
+                baseCount = vertexCount;
+                continue;
+            }
+
+            buildOutline(path, vertexX, vertexY, vertexCount, _Snapshot.useCubic, _Snapshot.useMonotoneCubic,
+                    _Snapshot.firstMultiplier, _Snapshot.secondMultiplier, _Snapshot.useFill, _Snapshot.graphHeight);
+        }
+
+        if (_Snapshot.legendLabels != null && result.lastVisible[0] >= 0) {
+            List<LegendModel> legend    = new ArrayList<LegendModel>(_Snapshot.legendLabels.length);
+            float             halfWidth = _Snapshot.legendStride * result.widthOffsets[0] / 2;
+
+            for (int i = 0; i < _Snapshot.legendLabels.length; i++) {
+                float       x     = result.screenX[0][_Snapshot.legendIndices[i] - result.firstVisible[0]];
+                LegendModel model = new LegendModel(_Snapshot.legendLabels[i]);
+                model.setLegendBounds(new RectF(x - halfWidth, 0, x + halfWidth, _Snapshot.legendHeight));
+                legend.add(model);
+            }
+
+            Utils.calculateLegendInformation(legend, _Snapshot.leftPadding,
+                    _Snapshot.graphWidth + _Snapshot.leftPadding, _Snapshot.legendPaint);
+            result.legend = legend;
+        }
+
+        return result;
+    }
+
+    /**
+     * Makes sure that the layout buffer is able to hold the given amount of values. The content of
+     * a replaced buffer is not kept.
+     * @param _Buffer The current buffer or null.
+     * @param _Size   Amount of values.
+     * @return The given buffer or a bigger one.
+     */
+    private static float[] ensureLayoutBuffer(float[] _Buffer, int _Size) {
+        return _Buffer != null && _Buffer.length >= _Size ? _Buffer : new float[_Size];
+    }
+
+    private static int[] ensureLayoutBuffer(int[] _Buffer, int _Size) {
+        return _Buffer != null && _Buffer.length >= _Size ? _Buffer : new int[_Size];
+    }
+
+    /**
+     * Returns a set of spare layout buffers or creates a new one. This may be called on any thread.
+     * @return The layout buffers.
+     */
+    private LayoutBuffers obtainLayoutBuffers() {
+        LayoutBuffers buffers = mSpareBuffers.getAndSet(null);
+        return buffers != null ? buffers : new LayoutBuffers();
+    }
+
+    /**
+     * Marks the buffers of a published result as used by the series. The buffers of the previously
+     * published result are not referenced anymore, so they become the spare buffers.
+     * @param _Buffers The buffers which are published.
+     */
+    private void publishLayoutBuffers(LayoutBuffers _Buffers) {
+        if (mPublishedBuffers != null && mPublishedBuffers != _Buffers) {
+            mSpareBuffers.set(mPublishedBuffers);
+        }
+        mPublishedBuffers = _Buffers;
+    }
+
+    /**
+     * Appends the pending values of all series and calculates the chart once. This is called on the
+     * UI thread once per frame. The pending buffer is swapped, so that producers can continue to
+     * append while the values are applied.
+     */
+    private void applyPendingAppends() {
+        int count;
+        synchronized (mPendingLock) {
+            ValueLineSeries[] series = mPendingSeries;
+            float[]           values = mPendingValues;
+
+            mPendingSeries  = mAppliedSeries;
+            mPendingValues  = mAppliedValues;
+            mAppliedSeries  = series;
+            mAppliedValues  = values;
+            count           = mPendingCount;
+            mPendingCount   = 0;
+            mLiveFrameScheduled = false;
+
+            if (mPendingValues.length < mAppliedValues.length) {
+                mPendingSeries = new ValueLineSeries[mAppliedValues.length];
+                mPendingValues = new float[mAppliedValues.length];
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            ValueLineSeries series = mAppliedSeries[i];
+            float           value  = mAppliedValues[i];
+
+            if (series instanceof RingBufferValueLineSeries) {
+                ((RingBufferValueLineSeries) series).append(value);
+            } else if (series instanceof ColumnarValueLineSeries) {
+                ((ColumnarValueLineSeries) series).addValue(value);
+            } else {
+                series.addPoint(new ValueLinePoint(value));
+            }
+            mAppliedSeries[i] = null;
+        }
+
+        if (count > 0) {
+            invalidateStages(DIRTY_SCALE);
+        }
+    }
+
+    /**
+     * Publishes the geometry of a preview. Only the paths and the scale are replaced, the
+     * coordinates of the points, the focus index and the legend are kept until the complete layout
+     * is published, because the preview only contains a sample of the points.
+     * @param _Result The calculated geometry of the sampled data.
+     */
+    private void applyPreview(LayoutResult _Result) {
+        // a pending transition starts from the previous geometry, so it isn't replaced by a preview
+        if (_Result.generation != mLayoutGeneration || _Result.generation == mMorphGeneration) {
+            mSpareBuffers.set(_Result.buffers);
+            return;
+        }
+
+        publishLayoutBuffers(_Result.buffers);
+        mPreviewActive     = true;
+        mTilesDirty        = true;
+        mNegativeValue     = _Result.negativeValue;
+        mNegativeOffset    = _Result.negativeOffset;
+        mHasNegativeValues = _Result.hasNegativeValues;
+        mStandardValueY    = _Result.standardValueY;
+
+        for (int i = 0; i < _Result.series.length; i++) {
+            ValueLineSeries series = _Result.series[i];
+
+            series.setScrollOffset(0);
+            series.setPath(_Result.paths[i]);
+            series.setLines(_Result.lines[i], _Result.lineCounts[i]);
+        }
+
+        invalidate();
+        mGraph.invalidate();
+        mGraphOverlay.invalidate();
+    }
+
+    /**
+     * Publishes the calculated geometry. This is called on the UI thread. Results of outdated
+     * snapshots are dropped, because a newer snapshot is already being calculated.
+     * @param _Result The calculated geometry.
+     */
+    private void applyLayout(LayoutResult _Result) {
+        if (_Result.generation != mLayoutGeneration) {
+            mSpareBuffers.set(_Result.buffers);
+            return;
+        }
+
+        publishLayoutBuffers(_Result.buffers);
+        if (!_Result.viewportOnly) {
+            mDataLayoutPending = false;
+        }
+
+        mPreviewActive        = false;
+        mTilesDirty           = true;
+        mLastHeightMultiplier = _Result.heightMultiplier;
+        mLastBaseline         = _Result.baseline;
+        mNegativeValue     = _Result.negativeValue;
+        mNegativeOffset    = _Result.negativeOffset;
+        mHasNegativeValues = _Result.hasNegativeValues;
+        mStandardValueY    = _Result.standardValueY;
+
+        mLayoutZoom           = _Result.zoom;
+        mLayoutViewportOffset = _Result.viewportOffset;
+
+        for (int i = 0; i < _Result.series.length; i++) {
+            ValueLineSeries series = _Result.series[i];
+            int             first  = _Result.firstVisible[i];
+            int             last   = _Result.lastVisible[i];
+
+            // the coordinates are copied, because the buffers are reused by the next layout pass
+            if (last >= first) {
+                series.setScreenCoordinates(first, _Result.screenX[i], _Result.screenY[i], 0, last - first + 1);
+                series.setVisibleRange(first, last);
+                series.setWidthOffset(_Result.widthOffsets[i]);
+            }
+            series.setScrollOffset(0);
+            series.setPath(_Result.paths[i]);
+            series.setLines(_Result.lines[i], _Result.lineCounts[i]);
+
+            if (series instanceof RingBufferValueLineSeries) {
+                // the next synchronous layout pass has to recalculate the series completely
+                RingLayout ringLayout = getRingLayout((RingBufferValueLineSeries) series);
+                ringLayout.layoutSequence = -1;
+                ringLayout.setPathExtendable(false, false);
+            }
+        }
+
+        if (!mUseCustomLegend && _Result.legend != null) {
+            mSeriesLegend = _Result.legend;
+        }
+
+        resetFocusedIndices();
+
+        // the viewport was moved while the layout was calculated, the newer viewport is already
+        // being calculated
+        shiftToViewport();
+        if (_Result.viewportOnly) {
+            refocusIndicator();
+        } else {
+            initializeIndicator();
+        }
+
+        // the transition of animateUpdate() waited for this geometry
+        if (_Result.generation == mMorphGeneration) {
+            mMorphGeneration = -1;
+            if (captureMorphEnd()) {
+                startMorph();
+            }
+        }
+
+        invalidate();
+        mGraph.invalidate();
+        mLegend.invalidate();
+        mGraphOverlay.invalidate();
+    }
+
+    /**
+     * Calculates the legend bounds for a custom list of legends.
+     */
+    protected void onLegendDataChanged() {
+
+        int   legendCount = mLegendList.size();
+        float margin = (mLegendWidth / legendCount);
+        float currentOffset = 0;
 
         for (LegendModel model : mLegendList) {
             model.setLegendBounds(new RectF(currentOffset, 0, currentOffset + margin, mLegendHeight));
@@ -750,7 +2393,1163 @@ public class ValueLineChart extends BaseChart {
             currentOffset += margin;
         }
 
-        invalidate();
+        invalidate();
+    }
+
+    /**
+     * Checks if a series only scrolled since the last layout pass, so that the coordinates of the
+     * remaining points can be reused.
+     * @param _Series      The series which should be checked.
+     * @param _WidthOffset The newly calculated width offset of the series.
+     * @return True if only the appended points have to be calculated.
+     */
+    private boolean isScrollable(ValueLineSeries _Series, float _WidthOffset) {
+        if (!(_Series instanceof RingBufferValueLineSeries) || mDownsamplingMode != DOWNSAMPLING_NONE || mUseStackedFill) {
+            return false;
+        }
+
+        RingBufferValueLineSeries series     = (RingBufferValueLineSeries) _Series;
+        RingLayout                ringLayout = getRingLayout(series);
+        long appended = series.getEvictedCount() - ringLayout.layoutSequence;
+
+        // the coordinates are recalculated completely after a full capacity was scrolled,
+        // so that they don't grow infinitely. A cleared series evicts all of its points, so it
+        // can't pass these checks either.
+        return series.isFull()
+                && ringLayout.layoutFull
+                && ringLayout.layoutSequence >= 0
+                && series.getWidthOffset() == _WidthOffset
+                && series.getEvictedCount() - ringLayout.layoutBase < series.getCapacity()
+                && appended < series.getCapacity();
+    }
+
+    /**
+     * Calculates the coordinates of the points which were appended to a scrolling series since the
+     * last layout pass. All coordinates are relative to the layout base of the series, which is why
+     * the remaining points keep their coordinates and the series is only moved by its scroll offset.
+     * @param _Series           The scrolling series.
+     * @param _HeightMultiplier The current height multiplier.
+     * @return Index of the first appended point.
+     */
+    private int scrollCoordinates(RingBufferValueLineSeries _Series, float _HeightMultiplier) {
+        RingLayout ringLayout   = getRingLayout(_Series);
+        int        size         = _Series.getPointCount();
+        float      widthOffset  = _Series.getWidthOffset();
+        float      scrollOffset = (_Series.getEvictedCount() - ringLayout.layoutBase) * widthOffset;
+
+        // the previously last point was moved to the graph end, so it has to be recalculated as well
+        int firstAppended = size - (int) (_Series.getEvictedCount() - ringLayout.layoutSequence);
+
+        for (int i = firstAppended - 1; i < size; i++) {
+            float x = i * widthOffset;
+            if (i == size - 1 && x < mGraphWidth) {
+                x = mGraphWidth;
+            }
+            _Series.setScreenCoordinates(i, x + scrollOffset, (mUseableGraphHeight + mTopPadding) - (_Series.getValueAt(i) * _HeightMultiplier));
+        }
+
+        _Series.setScrollOffset(scrollOffset);
+        return firstAppended;
+    }
+
+    /**
+     * Adds line segments for the appended points to the path of a scrolling series. The segments of
+     * evicted points stay in the path left of the visible area, until the path is rebuilt after a
+     * full capacity was scrolled. The former last point stays at the end of the graph in the path,
+     * which is at most one pixel away from its real position.
+     * @param _Series        The scrolling series.
+     * @param _RingLayout    The layout state of the series.
+     * @param _FirstAppended Index of the first appended point.
+     * @param _UseFill       True if the series is filled.
+     */
+    private void extendPath(RingBufferValueLineSeries _Series, RingLayout _RingLayout, int _FirstAppended,
+                            boolean _UseFill) {
+        Path outline = _UseFill ? _RingLayout.outlinePath : _Series.getPath();
+        int  size    = _Series.getPointCount();
+
+        for (int i = _FirstAppended; i < size; i++) {
+            outline.lineTo(_Series.getScreenX(i), _Series.getScreenY(i));
+        }
+
+        if (_UseFill) {
+            Path path = _Series.getPath();
+
+            path.set(outline);
+            closeFill(path, _Series.getScreenX(0), _Series.getScreenX(size - 1), mGraphHeight,
+                    _Series.getScreenX(0), _Series.getScreenY(0));
+        }
+    }
+
+    /**
+     * Returns the layout state of a scrolling series and creates it, if the series is laid out for
+     * the first time.
+     * @param _Series The scrolling series.
+     * @return The layout state of the series.
+     */
+    private RingLayout getRingLayout(RingBufferValueLineSeries _Series) {
+        RingLayout ringLayout = mRingLayouts.get(_Series);
+        if (ringLayout == null) {
+            ringLayout = new RingLayout();
+            mRingLayouts.put(_Series, ringLayout);
+        }
+        return ringLayout;
+    }
+
+    /**
+     * Calculates a fingerprint of the geometry in every tile of the graph. A point contributes to
+     * every tile which is touched by the segments to its neighbours or by the control points of a
+     * cubic curve. So a tile keeps its fingerprint, as long as the data in its x-range doesn't change.
+     * The settings which change the appearance of every tile are part of every fingerprint.
+     */
+    private void calculateTileHashes() {
+        int tileCount = (mGraphWidth + mTileWidth - 1) / mTileWidth;
+
+        if (mTileHashes == null || mTileHashes.length != tileCount) {
+            mTileHashes         = new long[tileCount];
+            mRenderedTileHashes = new long[tileCount];
+            mTileCache.evictAll();
+        }
+
+        long style = 17;
+        style = 31 * style + mGraphHeight;
+        style = 31 * style + mSeries.size();
+        style = 31 * style + (mUseCubic ? 1 : 0) + (mUseMonotoneCubic ? 2 : 0) + (mUseOverlapFill ? 4 : 0)
+                + (mUseStackedFill ? 8 : 0);
+        style = 31 * style + Float.floatToIntBits(mFirstMultiplier);
+        style = 31 * style + Float.floatToIntBits(mLineStroke);
+        style = 31 * style + mDownsamplingMode;
+        style = 31 * style + Float.floatToIntBits(mSimplifyTolerance);
+        style = 31 * style + Float.floatToIntBits(mHasNegativeValues ? mNegativeOffset : 0);
+        Arrays.fill(mTileHashes, style);
+
+        float padding = mLineStroke;
+
+        for (ValueLineSeries series : mSeries) {
+            int   first  = series.getFirstVisibleIndex();
+            int   last   = Math.min(series.getLastVisibleIndex(), series.getPointCount() - 1);
+            int   color  = series.getColor();
+            long  all    = color;
+
+            for (int i = first; i <= last; i++) {
+                long point = 31 * (31L * color + Float.floatToIntBits(getDisplayX(series, i)))
+                        + Float.floatToIntBits(series.getScreenY(i));
+                if (series instanceof BandValueLineSeries) {
+                    BandValueLineSeries band = (BandValueLineSeries) series;
+                    point = 31 * (31 * (31 * point + band.getBandColor()) + Float.floatToIntBits(band.getLowerAt(i)))
+                            + Float.floatToIntBits(band.getUpperAt(i));
+                }
+                all = 31 * all + point;
+
+                float left      = getDisplayX(series, Math.max(i - 2, first)) - padding;
+                float right     = getDisplayX(series, Math.min(i + 2, last)) + padding;
+                int   firstTile = Math.max(0, (int) Math.floor(left / mTileWidth));
+                int   lastTile  = Math.min(tileCount - 1, (int) Math.floor(right / mTileWidth));
+
+                for (int tile = firstTile; tile <= lastTile; tile++) {
+                    mTileHashes[tile] = 31 * mTileHashes[tile] + point;
+                }
+            }
+
+            // the buckets of the LTTB algorithm and the ranges of the simplification depend on each
+            // other, so every point of such a series may change every tile
+            boolean reduced = !mUseStackedFill && !(series instanceof BandValueLineSeries);
+            if (reduced && ((mDownsamplingMode == DOWNSAMPLING_LTTB && last - first + 1 > mGraphWidth)
+                    || mSimplifyTolerance > 0)) {
+                for (int tile = 0; tile < tileCount; tile++) {
+                    mTileHashes[tile] = 31 * mTileHashes[tile] + all;
+                }
+            }
+        }
+
+        mTilesDirty = false;
+    }
+
+    /**
+     * Creates the cache for the rendered tiles, which measures its size in kB.
+     * @param _Size The memory budget in kB.
+     * @return The tile cache.
+     */
+    private static LruCache<Integer, Bitmap> createTileCache(int _Size) {
+        return new LruCache<Integer, Bitmap>(Math.max(_Size, 1)) {
+            @Override
+            protected int sizeOf(Integer _Key, Bitmap _Value) {
+                return _Value.getByteCount() / 1024;
+            }
+        };
+    }
+
+    /**
+     * Builds the envelope and the center line of a band series from the visible points, whose
+     * center coordinates are already calculated.
+     * @param _Series           The band series.
+     * @param _FirstVisible     Index of the first visible point.
+     * @param _PointCount       Amount of visible points.
+     * @param _Baseline         y-coordinate of the value 0.
+     * @param _HeightMultiplier The y-scale.
+     */
+    private void layoutBand(BandValueLineSeries _Series, int _FirstVisible, int _PointCount, float _Baseline,
+                            float _HeightMultiplier) {
+        if (mEnvelopeUpperY == null || mEnvelopeUpperY.length < _PointCount) {
+            mEnvelopeUpperY = new float[mPointX.length];
+            mEnvelopeLowerY = new float[mPointX.length];
+        }
+
+        for (int i = 0; i < _PointCount; i++) {
+            mEnvelopeUpperY[i] = _Baseline - (_Series.getUpperAt(_FirstVisible + i) * _HeightMultiplier);
+            mEnvelopeLowerY[i] = _Baseline - (_Series.getLowerAt(_FirstVisible + i) * _HeightMultiplier);
+        }
+
+        buildEnvelope(_Series.getPath(), mPointX, mEnvelopeUpperY, mEnvelopeLowerY, _PointCount);
+        fillLines(_Series, mPointX, mPointY, _PointCount);
+    }
+
+    /**
+     * Rewinds the path and adds the area between the upper and the lower outline as closed
+     * segments. The upper outline is added forward and the lower one backwards. Points where one of
+     * the outlines is NaN are gaps, which split the envelope.
+     * @param _Path  The path which should be built.
+     * @param _X     x-coordinates of the points
+     * @param _Upper y-coordinates of the upper outline
+     * @param _Lower y-coordinates of the lower outline
+     * @param _Count Amount of points
+     */
+    private static void buildEnvelope(Path _Path, float[] _X, float[] _Upper, float[] _Lower, int _Count) {
+        _Path.rewind();
+
+        int i = 0;
+        while (i < _Count) {
+            if (Float.isNaN(_Upper[i]) || Float.isNaN(_Lower[i])) {
+                i++;
+                continue;
+            }
+
+            int from = i;
+            _Path.moveTo(_X[from], _Upper[from]);
+            while (i < _Count && !Float.isNaN(_Upper[i]) && !Float.isNaN(_Lower[i])) {
+                _Path.lineTo(_X[i], _Upper[i]);
+                i++;
+            }
+            for (int j = i - 1; j >= from; j--) {
+                _Path.lineTo(_X[j], _Lower[j]);
+            }
+            _Path.close();
+        }
+    }
+
+    /**
+     * Makes sure that the running sums of a stacked chart can hold every point index and sets
+     * them to 0.
+     */
+    private void resetStackSums() {
+        int maxCount = 0;
+        for (ValueLineSeries series : mSeries) {
+            maxCount = Math.max(maxCount, series.getPointCount());
+        }
+
+        if (mStackSums == null || mStackSums.length < maxCount) {
+            mStackSums = new float[maxCount];
+        } else {
+            Arrays.fill(mStackSums, 0, maxCount, 0.f);
+        }
+    }
+
+    /**
+     * Checks if a range of points contains a gap.
+     * @param _Series The series which contains the points.
+     * @param _From   Index of the first point.
+     * @param _To     Index after the last point.
+     * @return True if a value of the range is NaN.
+     */
+    private static boolean containsGap(ValueLineSeries _Series, int _From, int _To) {
+        for (int i = _From; i < _To; i++) {
+            if (Float.isNaN(_Series.getValueAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the point at the given index can be focused, which excludes gaps.
+     * @param _Series The series which contains the point.
+     * @param _Index  Index of the point.
+     * @return True if the point exists and has a value.
+     */
+    private static boolean isFocusable(ValueLineSeries _Series, int _Index) {
+        return _Index >= 0 && _Index < _Series.getPointCount() && !Float.isNaN(_Series.getValueAt(_Index));
+    }
+
+    /**
+     * Returns the x-coordinate of a point on the screen.
+     * @param _Series The series which contains the point.
+     * @param _Index  Index of the point.
+     * @return The x-coordinate in px.
+     */
+    private float getDisplayX(ValueLineSeries _Series, int _Index) {
+        return _Series.getScreenX(_Index) - _Series.getScrollOffset();
+    }
+
+    /**
+     * Resizes the focused indices after the series were calculated and invalidates the merged x
+     * index, which is built again with the next focus lookup.
+     */
+    private void resetFocusedIndices() {
+        if (mFocusedIndices.length != mSeries.size()) {
+            mFocusedIndices = new int[mSeries.size()];
+            Arrays.fill(mFocusedIndices, -1);
+        }
+        mFocusIndexValid = false;
+    }
+
+    /**
+     * Builds the merged x index of the visible points of all series. The series are merged by the
+     * pixel column in which a point is the last point left of the column center. For every merged
+     * column the index stores the last point of every series, which is not right of the column
+     * center, so a single binary search over the columns returns the points of all series. The
+     * buffers of the index are reused between the layout passes.
+     */
+    private void buildFocusIndex() {
+        int seriesCount = mSeries.size();
+        int maxColumn   = (int) Math.ceil(mGraphWidth);
+
+        if (mFocusHeads.length < seriesCount) {
+            mFocusHeads = new int[seriesCount];
+        }
+        for (int s = 0; s < seriesCount; s++) {
+            mFocusHeads[s] = mSeries.get(s).getFirstVisibleIndex();
+        }
+
+        int entryCount = 0;
+        while (true) {
+            // the next column is the leftmost column of the remaining points
+            int column = Integer.MAX_VALUE;
+            for (int s = 0; s < seriesCount; s++) {
+                ValueLineSeries series = mSeries.get(s);
+                if (mFocusHeads[s] <= getLastFocusableIndex(series)) {
+                    column = Math.min(column, getFocusColumn(series, mFocusHeads[s], maxColumn));
+                }
+            }
+            if (column == Integer.MAX_VALUE) {
+                break;
+            }
+
+            if (entryCount == mFocusColumns.length) {
+                mFocusColumns = Arrays.copyOf(mFocusColumns, Math.max(16, entryCount * 2));
+            }
+            if ((entryCount + 1) * seriesCount > mFocusFloors.length) {
+                mFocusFloors = Arrays.copyOf(mFocusFloors, Math.max(16, entryCount * 2) * seriesCount);
+            }
+
+            mFocusColumns[entryCount] = column;
+            for (int s = 0; s < seriesCount; s++) {
+                ValueLineSeries series = mSeries.get(s);
+                int             last   = getLastFocusableIndex(series);
+                while (mFocusHeads[s] <= last && getFocusColumn(series, mFocusHeads[s], maxColumn) <= column) {
+                    mFocusHeads[s]++;
+                }
+                mFocusFloors[entryCount * seriesCount + s] = mFocusHeads[s] - 1;
+            }
+            entryCount++;
+        }
+
+        mFocusEntryCount  = entryCount;
+        mFocusIndexScroll = mSeries.isEmpty() ? 0 : mSeries.get(0).getScrollOffset();
+        mFocusIndexValid  = true;
+    }
+
+    /**
+     * Returns the first pixel column, which center isn't left of the given point. The columns are
+     * limited to the graph, because only columns inside the graph are touched.
+     */
+    private int getFocusColumn(ValueLineSeries _Series, int _Index, int _MaxColumn) {
+        int column = (int) Math.ceil(getDisplayX(_Series, _Index) - 0.5f);
+        return Math.max(-1, Math.min(column, _MaxColumn));
+    }
+
+    private static int getLastFocusableIndex(ValueLineSeries _Series) {
+        return Math.min(_Series.getLastVisibleIndex(), _Series.getPointCount() - 1);
+    }
+
+    /**
+     * Focuses the nearest point of every series at the given x-coordinate with a single binary
+     * search over the merged x index.
+     * @param _X x-coordinate on the screen
+     * @return True if the focused point of any series changed.
+     */
+    private boolean focusAt(float _X) {
+        if (mGraphWidth <= 0 || mFocusedIndices.length != mSeries.size()) {
+            return false;
+        }
+        if (!mFocusIndexValid) {
+            buildFocusIndex();
+        }
+
+        int     seriesCount = mFocusedIndices.length;
+        // compare with the center of the touched pixel column
+        float   x           = Math.max(0, Math.min(mGraphWidth - 1, (int) _X)) + 0.5f;
+        boolean changed     = false;
+
+        // the published geometry may have been moved since the index was built
+        float scroll = mSeries.get(0).getScrollOffset() - mFocusIndexScroll;
+        int   column = Math.max(-1, Math.min((int) Math.floor(x + scroll), (int) Math.ceil(mGraphWidth) - 1));
+
+        // the last merged column which is not right of the touched column
+        int low  = 0;
+        int high = mFocusEntryCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (mFocusColumns[middle] <= column) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        for (int s = 0; s < seriesCount; s++) {
+            ValueLineSeries series = mSeries.get(s);
+            int             floor  = high >= 0 ? mFocusFloors[high * seriesCount + s] : series.getFirstVisibleIndex() - 1;
+            int             index  = findNearestIndex(series, floor, x);
+            if (mFocusedIndices[s] != index) {
+                mFocusedIndices[s] = index;
+                changed = true;
+            }
+        }
+
+        mFocusedIndex = mFocusedIndices[0];
+        return changed;
+    }
+
+    /**
+     * Chooses the nearest point of a series from the last point, which is not right of the given
+     * x-coordinate, and its successor.
+     * @param _Series The series.
+     * @param _Floor  Index of the last point which is not right of the coordinate. It is before the
+     *                first visible point, if all points are right of it.
+     * @param _X      x-coordinate on the screen
+     * @return Index of the nearest point or -1 if the series has no visible point or the nearest
+     *         point is a gap.
+     */
+    private int findNearestIndex(ValueLineSeries _Series, int _Floor, float _X) {
+        int first = _Series.getFirstVisibleIndex();
+        int last  = getLastFocusableIndex(_Series);
+        if (last < first) {
+            return -1;
+        }
+
+        // if the distance to both points is equal, the first point is chosen
+        int nearest = Math.max(first, Math.min(_Floor, last));
+        if (_Floor >= first && nearest < last
+                && getDisplayX(_Series, nearest + 1) - _X < _X - getDisplayX(_Series, nearest)) {
+            nearest = nearest + 1;
+        }
+        // nothing is focused inside of a gap
+        return Float.isNaN(_Series.getValueAt(nearest)) ? -1 : nearest;
+    }
+
+    /**
+     * Moves the indicator to the focused point which is nearest to the given position. If no point
+     * is focused, the indicator is moved to the position itself.
+     * @param _X x-coordinate on the screen
+     * @param _Y y-coordinate on the screen
+     */
+    private void updateTouchedArea(float _X, float _Y) {
+        boolean found = false;
+
+        for (int s = 0; s < mFocusedIndices.length; s++) {
+            int index = mFocusedIndices[s];
+            if (!isFocusable(mSeries.get(s), index)) {
+                continue;
+            }
+
+            float x = getDisplayX(mSeries.get(s), index);
+            if (!found || Math.abs(x - _X) < Math.abs(mTouchedArea.getX() - _X)) {
+                mTouchedArea.setX(x);
+                mTouchedArea.setY(mSeries.get(s).getScreenY(index));
+                found = true;
+            }
+        }
+
+        if (!found) {
+            mTouchedArea.setX(_X);
+            mTouchedArea.setY(_Y);
+        }
+    }
+
+    /**
+     * Notifies the listeners about a new focused point.
+     */
+    private void notifyFocusChanged() {
+        if (mListener != null) {
+            mListener.onPointFocused(mFocusedIndex);
+        }
+        if (mPointsListener != null) {
+            // the listener gets a reused copy, so that scrubbing doesn't allocate
+            if (mNotifiedIndices.length != mFocusedIndices.length) {
+                mNotifiedIndices = new int[mFocusedIndices.length];
+            }
+            System.arraycopy(mFocusedIndices, 0, mNotifiedIndices, 0, mFocusedIndices.length);
+            mPointsListener.onPointsFocused(mNotifiedIndices);
+        }
+    }
+
+    /**
+     * Checks if the legend of a series is built from ticks instead of all points.
+     * @param _Series The series which is used for the legend.
+     * @return True if only ticks are legend candidates.
+     */
+    private boolean usesTickLegend(ValueLineSeries _Series) {
+        return mLegendMode == LEGEND_TICKS || _Series instanceof ColumnarValueLineSeries;
+    }
+
+    /**
+     * Returns the distance between two legend candidates of a series in points. For ticks, the
+     * distance is chosen so that the estimated label width fits between two candidates. All other
+     * series use every point as candidate.
+     * @param _Series The series which is used for the legend.
+     * @return The distance between two candidates.
+     */
+    private int getLegendStride(ValueLineSeries _Series) {
+        if (!usesTickLegend(_Series)) {
+            return 1;
+        }
+
+        float widthOffset = calculateWidthOffset(_Series.getPointCount(), mGraphWidth * mZoom);
+        float distance    = Math.max(Utils.dpToPx(MIN_LEGEND_CANDIDATE_DISTANCE),
+                estimateLegendLabelWidth(_Series) + Utils.dpToPx(LEGEND_TEXT_MARGIN));
+
+        return Math.max(1, (int) Math.ceil(distance / widthOffset));
+    }
+
+    /**
+     * Estimates the width of the legend labels of a series from the labels of the first and the
+     * last visible point, instead of measuring every label.
+     * @param _Series The series which is used for the legend.
+     * @return The estimated label width in px.
+     */
+    private float estimateLegendLabelWidth(ValueLineSeries _Series) {
+        int first = Math.max(0, _Series.getFirstVisibleIndex());
+        int last  = Math.min(_Series.getLastVisibleIndex(), _Series.getPointCount() - 1);
+
+        if (last < first) {
+            return 0;
+        }
+        return Math.max(mLegendPaint.measureText(_Series.getLegendLabelAt(first)),
+                mLegendPaint.measureText(_Series.getLegendLabelAt(last)));
+    }
+
+    /**
+     * Returns the index of the first legend candidate inside the viewport. Candidates are always
+     * multiples of the stride, so that the labels don't change while the viewport is moved. The
+     * first point of the series is never labeled.
+     * @param _Series The series which is used for the legend.
+     * @param _Stride The distance between two candidates.
+     * @return Index of the first candidate.
+     */
+    private static int getFirstLegendCandidate(ValueLineSeries _Series, int _Stride) {
+        int first = ((_Series.getFirstVisibleIndex() + _Stride - 1) / _Stride) * _Stride;
+        return Math.max(first, _Stride);
+    }
+
+    /**
+     * Returns the index of the last point inside the viewport, which may be a legend candidate. The
+     * last point of the series is never labeled.
+     * @param _Series The series which is used for the legend.
+     * @return Index of the last possible candidate.
+     */
+    private static int getLastLegendCandidate(ValueLineSeries _Series) {
+        return Math.min(_Series.getLastVisibleIndex(), _Series.getPointCount() - 2);
+    }
+
+    /**
+     * Calculates the tick legend of a series. Only every n-th point is a legend candidate, so that
+     * the amount of candidates and measured labels depends on the graph width instead of the amount
+     * of points. The legend models are reused between the layout passes.
+     * @param _Series The series which is used for the legend.
+     * @return The legend candidates.
+     */
+    private List<LegendModel> calculateTickLegend(ValueLineSeries _Series) {
+        int stride = getLegendStride(_Series);
+        int last   = getLastLegendCandidate(_Series);
+        int count  = 0;
+
+        for (int i = getFirstLegendCandidate(_Series, stride); i <= last; i += stride) {
+            LegendModel model;
+            if (count < mTickLegendPool.size()) {
+                model = mTickLegendPool.get(count);
+                model.setLegendLabel(_Series.getLegendLabelAt(i));
+            } else {
+                model = new LegendModel(_Series.getLegendLabelAt(i));
+                model.setLegendBounds(new RectF());
+                mTickLegendPool.add(model);
+            }
+
+            float x = getDisplayX(_Series, i);
+            float halfWidth = stride * _Series.getWidthOffset() / 2;
+            model.getLegendBounds().set(x - halfWidth, 0, x + halfWidth, mLegendHeight);
+            count++;
+        }
+
+        return mTickLegendPool.subList(0, count);
+    }
+
+    /**
+     * Converts the given points into line segments, which can be drawn with a single
+     * Canvas.drawLines() call, and stores them in the series. The line buffer of the series is reused
+     * if it is big enough.
+     * @param _Series The series which will hold the line segments.
+     * @param _X      x-coordinates of the points
+     * @param _Y      y-coordinates of the points
+     * @param _Count  Amount of points
+     */
+    private void fillLines(ValueLineSeries _Series, float[] _X, float[] _Y, int _Count) {
+        float[] lines     = _Series.getLines();
+        int     lineCount = Math.max(_Count - 1, 0) * 4;
+
+        if (lines == null || lines.length < lineCount) {
+            lines = new float[lineCount];
+        }
+        _Series.setLines(lines, toLines(_X, _Y, _Count, lines));
+    }
+
+    /**
+     * Converts the given points into line segments. Segments which touch a gap (NaN y-coordinate)
+     * are left out.
+     * @param _X     x-coordinates of the points
+     * @param _Y     y-coordinates of the points
+     * @param _Count Amount of points
+     * @param _Lines Array for the line segments, which has to hold (_Count - 1) * 4 values.
+     * @return The amount of values which were stored in the array.
+     */
+    private static int toLines(float[] _X, float[] _Y, int _Count, float[] _Lines) {
+        int index = 0;
+        for (int i = 1; i < _Count; i++) {
+            if (Float.isNaN(_Y[i - 1]) || Float.isNaN(_Y[i])) {
+                continue;
+            }
+            _Lines[index++] = _X[i - 1];
+            _Lines[index++] = _Y[i - 1];
+            _Lines[index++] = _X[i];
+            _Lines[index++] = _Y[i];
+        }
+
+        return index;
+    }
+
+    /**
+     * Reduces the points with the given downsampling mode and copies the selected points into the
+     * sample arrays.
+     * @param _Mode       The downsampling mode.
+     * @param _X          x-coordinates of the points
+     * @param _Y          y-coordinates of the points
+     * @param _Count      Amount of points
+     * @param _GraphWidth Width of the graph in px.
+     * @param _Indices    Array for the selected indices.
+     * @param _SampleX    Array for the x-coordinates of the selected points.
+     * @param _SampleY    Array for the y-coordinates of the selected points.
+     * @return The amount of selected points.
+     */
+    private static int downsample(int _Mode, float[] _X, float[] _Y, int _Count, int _GraphWidth,
+                                  int[] _Indices, float[] _SampleX, float[] _SampleY) {
+        int count;
+        if (_Mode == DOWNSAMPLING_M4) {
+            count = Downsampler.m4(_X, _Y, _Count, _Indices);
+        } else {
+            count = Downsampler.largestTriangleThreeBuckets(_X, _Y, _Count,
+                    Math.max(_GraphWidth, MIN_DOWNSAMPLING_THRESHOLD), _Indices);
+        }
+
+        for (int i = 0; i < count; i++) {
+            _SampleX[i] = _X[_Indices[i]];
+            _SampleY[i] = _Y[_Indices[i]];
+        }
+        return count;
+    }
+
+    /**
+     * Simplifies the points with the Douglas-Peucker algorithm and copies the selected points into
+     * the sample arrays. The sample arrays may be the same as the point arrays.
+     * @param _X         x-coordinates of the points
+     * @param _Y         y-coordinates of the points
+     * @param _Count     Amount of points
+     * @param _Tolerance Tolerance in px.
+     * @param _Indices   Array for the selected indices.
+     * @param _SampleX   Array for the x-coordinates of the selected points.
+     * @param _SampleY   Array for the y-coordinates of the selected points.
+     * @return The amount of selected points.
+     */
+    private static int simplify(float[] _X, float[] _Y, int _Count, float _Tolerance,
+                                int[] _Indices, float[] _SampleX, float[] _SampleY) {
+        int count = Downsampler.douglasPeucker(_X, _Y, _Count, _Tolerance, _Indices);
+
+        // the indices are ascending and never smaller than their position, so copying in place is safe
+        for (int i = 0; i < count; i++) {
+            _SampleX[i] = _X[_Indices[i]];
+            _SampleY[i] = _Y[_Indices[i]];
+        }
+        return count;
+    }
+
+    /**
+     * Rewinds the path and adds the outline of the given points as cubic or straight lines. Points
+     * with a NaN y-coordinate are gaps, which split the outline into segments. Every segment starts
+     * with its own moveTo and is closed separately along the bottom of the graph, if the series is
+     * filled.
+     * @param _Path             The path which should be built.
+     * @param _X                x-coordinates of the points
+     * @param _Y                y-coordinates of the points
+     * @param _Count            Amount of points
+     * @param _UseCubic         True if cubic lines should be used.
+     * @param _Monotone         True if the cubic lines should use the monotone interpolation.
+     * @param _FirstMultiplier  First smoothness multiplier
+     * @param _SecondMultiplier Second smoothness multiplier
+     * @param _Fill             True if the segments should be closed for filling.
+     * @param _GraphHeight      Height of the graph in px.
+     * @return True if the points contain a gap.
+     */
+    private static boolean buildOutline(Path _Path, float[] _X, float[] _Y, int _Count, boolean _UseCubic,
+                                        boolean _Monotone, float _FirstMultiplier, float _SecondMultiplier,
+                                        boolean _Fill, int _GraphHeight) {
+        _Path.rewind();
+
+        boolean gaps = false;
+        int     i    = 0;
+
+        while (i < _Count) {
+            if (Float.isNaN(_Y[i])) {
+                gaps = true;
+                i++;
+                continue;
+            }
+
+            int from = i;
+            while (i < _Count && !Float.isNaN(_Y[i])) {
+                i++;
+            }
+
+            _Path.moveTo(_X[from], _Y[from]);
+
+            // If a cubic curve should be drawn then calculate cubic path
+            // If not then just draw basic lines
+            if (_UseCubic && _Monotone) {
+                addMonotoneCubic(_Path, _X, _Y, from, i);
+            } else if (_UseCubic) {
+                addCubic(_Path, _X, _Y, from, i, _FirstMultiplier, _SecondMultiplier);
+            } else {
+                for (int j = from + 1; j < i; j++) {
+                    _Path.lineTo(_X[j], _Y[j]);
+                }
+            }
+
+            if (_Fill) {
+                closeFill(_Path, _X[from], _X[i - 1], _GraphHeight, _X[from], _Y[from]);
+            }
+        }
+
+        return gaps;
+    }
+
+    /**
+     * Adds a range of points as smoothed cubic curve to the path, which has to start at the first
+     * point of the range.
+     * @param _Path             The path which should be extended.
+     * @param _X                x-coordinates of the points
+     * @param _Y                y-coordinates of the points
+     * @param _From             Index of the first point.
+     * @param _To               Index after the last point.
+     * @param _FirstMultiplier  First smoothness multiplier
+     * @param _SecondMultiplier Second smoothness multiplier
+     */
+    private static void addCubic(Path _Path, float[] _X, float[] _Y, int _From, int _To,
+                                 float _FirstMultiplier, float _SecondMultiplier) {
+        if (_To - _From < 2) {
+            return;
+        }
+
+        Point2D P1 = new Point2D();
+        Point2D P2 = new Point2D();
+        Point2D P3 = new Point2D();
+
+        for (int i = _From; i < _To; i++) {
+
+            // Check if the end of the range has been reached and do the last calculation to prevent ArrayOutOfBounds
+            if ((_To - i) < 3) {
+                P1.setX(_X[i]);
+                P1.setY(_Y[i]);
+
+                P2.setX(_X[i + 1]);
+                P2.setY(_Y[i + 1]);
+                calculatePointDiff(P1, P2, P1, _SecondMultiplier);
+
+                P3.setX(_X[i + 1]);
+                P3.setY(_Y[i + 1]);
+                calculatePointDiff(P2, P3, P3, _FirstMultiplier);
+
+                _Path.cubicTo(P1.getX(), P1.getY(), P2.getX(), P2.getY(), P3.getX(), P3.getY());
+                break;
+            } else {
+                P1.setX(_X[i]);
+                P1.setY(_Y[i]);
+
+                P2.setX(_X[i + 1]);
+                P2.setY(_Y[i + 1]);
+                calculatePointDiff(P1, P2, P1, _SecondMultiplier);
+
+                P3.setX(_X[i + 2]);
+                P3.setY(_Y[i + 2]);
+                calculatePointDiff(P2, P3, P3, _FirstMultiplier);
+            }
+
+            _Path.cubicTo(P1.getX(), P1.getY(), P2.getX(), P2.getY(), P3.getX(), P3.getY());
+        }
+    }
+
+    /**
+     * Adds the points as a monotone cubic curve (Fritsch-Carlson) to the path, which has to start
+     * at the first point. The tangent of a point is the weighted harmonic mean of the slopes of its
+     * neighbouring segments, or 0 at a local extreme. This keeps every segment between the values of
+     * its end points, so the curve never overshoots. The tangents only depend on the neighbouring
+     * segments, so the control points are calculated in a single pass without temporary arrays.
+     * @param _Path The path which should be extended.
+     * @param _X    x-coordinates of the points, sorted in ascending order.
+     * @param _Y    y-coordinates of the points
+     * @param _From Index of the first point.
+     * @param _To   Index after the last point.
+     */
+    private static void addMonotoneCubic(Path _Path, float[] _X, float[] _Y, int _From, int _To) {
+        if (_To - _From < 2) {
+            return;
+        }
+
+        float width   = _X[_From + 1] - _X[_From];
+        float slope   = width > 0 ? (_Y[_From + 1] - _Y[_From]) / width : 0;
+        float tangent = slope;
+
+        for (int i = _From; i < _To - 1; i++) {
+            float nextWidth   = 0;
+            float nextSlope   = 0;
+            float nextTangent = slope;
+
+            if (i + 2 < _To) {
+                nextWidth   = _X[i + 2] - _X[i + 1];
+                nextSlope   = nextWidth > 0 ? (_Y[i + 2] - _Y[i + 1]) / nextWidth : 0;
+                nextTangent = Utils.calculateMonotoneTangent(width, slope, nextWidth, nextSlope);
+            }
+
+            float third = width / 3;
+            _Path.cubicTo(_X[i] + third, _Y[i] + tangent * third,
+                    _X[i + 1] - third, _Y[i + 1] - nextTangent * third,
+                    _X[i + 1], _Y[i + 1]);
+
+            width   = nextWidth;
+            slope   = nextSlope;
+            tangent = nextTangent;
+        }
+    }
+
+    /**
+     * Adds the points as a monotone cubic curve from the last to the first point to the path, which
+     * has to be at the last point. The segments are exactly the same as the ones which are added by
+     * {@link #addMonotoneCubic(Path, float[], float[], int, int)}, only traversed backwards.
+     * @param _Path The path which should be extended.
+     * @param _X    x-coordinates of the points, sorted in ascending order.
+     * @param _Y    y-coordinates of the points
+     * @param _From Index of the first point.
+     * @param _To   Index after the last point.
+     */
+    private static void addMonotoneCubicReversed(Path _Path, float[] _X, float[] _Y, int _From, int _To) {
+        if (_To - _From < 2) {
+            return;
+        }
+
+        float width   = _X[_To - 1] - _X[_To - 2];
+        float slope   = width > 0 ? (_Y[_To - 1] - _Y[_To - 2]) / width : 0;
+        float tangent = slope;
+
+        for (int i = _To - 1; i > _From; i--) {
+            float prevWidth   = 0;
+            float prevSlope   = 0;
+            float prevTangent = slope;
+
+            if (i - 2 >= _From) {
+                prevWidth   = _X[i - 1] - _X[i - 2];
+                prevSlope   = prevWidth > 0 ? (_Y[i - 1] - _Y[i - 2]) / prevWidth : 0;
+                prevTangent = Utils.calculateMonotoneTangent(prevWidth, prevSlope, width, slope);
+            }
+
+            float third = width / 3;
+            _Path.cubicTo(_X[i] - third, _Y[i] - tangent * third,
+                    _X[i - 1] + third, _Y[i - 1] + prevTangent * third,
+                    _X[i - 1], _Y[i - 1]);
+
+            width   = prevWidth;
+            slope   = prevSlope;
+            tangent = prevTangent;
+        }
+    }
+
+    /**
+     * Builds the closed band of a stacked series between its outline and the outline of the series
+     * below. The lower edge is the outline of the series below traversed backwards. Stacked series
+     * keep all of their visible points, so an outline never crosses the outline below and
+     * neighbouring bands share their edge exactly.
+     * @param _Path      The path which should be built.
+     * @param _X         x-coordinates of the points
+     * @param _Y         y-coordinates of the stacked points
+     * @param _Count     Amount of points
+     * @param _BaseX     x-coordinates of the points of the series below
+     * @param _BaseY     y-coordinates of the stacked points of the series below
+     * @param _BaseCount Amount of points of the series below
+     * @param _UseCubic  True if the edges should be monotone cubic curves.
+     */
+    private static void buildBand(Path _Path, float[] _X, float[] _Y, int _Count,
+                                  float[] _BaseX, float[] _BaseY, int _BaseCount, boolean _UseCubic) {
+        _Path.rewind();
+        _Path.moveTo(_X[0], _Y[0]);
+
+        if (_UseCubic) {
+            addMonotoneCubic(_Path, _X, _Y, 0, _Count);
+        } else {
+            for (int i = 1; i < _Count; i++) {
+                _Path.lineTo(_X[i], _Y[i]);
+            }
+        }
+
+        _Path.lineTo(_BaseX[_BaseCount - 1], _BaseY[_BaseCount - 1]);
+
+        if (_UseCubic) {
+            addMonotoneCubicReversed(_Path, _BaseX, _BaseY, 0, _BaseCount);
+        } else {
+            for (int i = _BaseCount - 2; i >= 0; i--) {
+                _Path.lineTo(_BaseX[i], _BaseY[i]);
+            }
+        }
+
+        _Path.close();
+    }
+
+    /**
+     * Closes the outline of a filled series along the bottom of the graph.
+     * @param _Path         The outline of the series.
+     * @param _StartX       x-coordinate where the fill starts, usually the first point.
+     * @param _EndX         x-coordinate where the fill ends, usually the last point.
+     * @param _GraphHeight  Height of the graph in px.
+     * @param _FirstX       x-coordinate of the first point
+     * @param _FirstY       y-coordinate of the first point
+     */
+    private static void closeFill(Path _Path, float _StartX, float _EndX, int _GraphHeight, float _FirstX, float _FirstY) {
+        _Path.lineTo(_EndX, _GraphHeight);
+        _Path.lineTo(_StartX, _GraphHeight);
+        _Path.lineTo(_FirstX, _FirstY);
+    }
+
+    /**
+     * Samples the currently drawn series into the start buffer of a transition. Band series are not
+     * supported.
+     * @return True if the start geometry was captured.
+     */
+    @Override
+    protected boolean onCaptureMorphStart() {
+        mMorphGeneration = -1;
+
+        if (mGraphWidth <= 0 || mGraphHeight <= 0) {
+            return false;
+        }
+        for (ValueLineSeries series : mSeries) {
+            if (series instanceof BandValueLineSeries) {
+                return false;
+            }
+        }
+
+        if (mMorphing) {
+            System.arraycopy(mMorphY, 0, mMorphStartY, 0, mMorphSeriesCount * mMorphColumns);
+            mMorphStartOffset      = mMorphOffset;
+            mMorphStartSeriesCount = mMorphSeriesCount;
+            return true;
+        }
+
+        mMorphColumns = (int) (mGraphWidth / mMorphColumnWidth) + 1;
+        mMorphStartY  = ensureMorphBuffer(mMorphStartY, mSeries.size() * mMorphColumns);
+
+        for (int s = 0; s < mSeries.size(); s++) {
+            sampleColumns(mSeries.get(s), mMorphStartY, s * mMorphColumns);
+        }
+        mMorphStartOffset      = mHasNegativeValues ? mNegativeOffset : 0;
+        mMorphStartSeriesCount = mSeries.size();
+        return true;
+    }
+
+    /**
+     * Samples the new geometry into the end buffer of a transition. The asynchronous layout
+     * calculates the geometry later on, so the transition is started when it is applied.
+     * @return True if the transition can be started.
+     */
+    @Override
+    protected boolean onCaptureMorphEnd() {
+        if (mAsyncLayout) {
+            mMorphGeneration = mLayoutGeneration;
+            return false;
+        }
+        return captureMorphEnd();
+    }
+
+    /**
+     * Samples the current geometry into the end buffer of a transition. New series start with their
+     * end geometry.
+     * @return True if the transition can be started.
+     */
+    private boolean captureMorphEnd() {
+        int seriesCount = mSeries.size();
+        if (seriesCount == 0 || (int) (mGraphWidth / mMorphColumnWidth) + 1 != mMorphColumns) {
+            return false;
+        }
+
+        int size = seriesCount * mMorphColumns;
+        mMorphStartY = ensureMorphBuffer(mMorphStartY, size);
+        mMorphEndY   = ensureMorphBuffer(mMorphEndY, size);
+        mMorphY      = ensureMorphBuffer(mMorphY, size);
+
+        for (int s = 0; s < seriesCount; s++) {
+            ValueLineSeries series = mSeries.get(s);
+            if (series instanceof BandValueLineSeries) {
+                return false;
+            }
+
+            sampleColumns(series, mMorphEndY, s * mMorphColumns);
+            if (s >= mMorphStartSeriesCount) {
+                System.arraycopy(mMorphEndY, s * mMorphColumns, mMorphStartY, s * mMorphColumns, mMorphColumns);
+            }
+        }
+
+        if (mMorphPaths == null || mMorphPaths.length < seriesCount) {
+            Path[] paths = new Path[seriesCount];
+            for (int s = 0; s < seriesCount; s++) {
+                paths[s] = mMorphPaths != null && s < mMorphPaths.length ? mMorphPaths[s] : new Path();
+            }
+            mMorphPaths = paths;
+        }
+
+        mMorphEndOffset   = mHasNegativeValues ? mNegativeOffset : 0;
+        mMorphSeriesCount = seriesCount;
+        return true;
+    }
+
+    /**
+     * Interpolates the sampled series and builds the reused paths, which are drawn during the
+     * transition. Columns which touch a gap in the start or the end geometry are left out.
+     * @param _Fraction Progress of the transition between 0 and 1.
+     */
+    @Override
+    protected void onMorphFrame(float _Fraction) {
+        boolean fill = mUseOverlapFill || mUseStackedFill || mMorphSeriesCount == 1;
+
+        mMorphOffset = mMorphStartOffset + (mMorphEndOffset - mMorphStartOffset) * _Fraction;
+
+        for (int s = 0; s < mMorphSeriesCount; s++) {
+            Path path   = mMorphPaths[s];
+            int  offset = s * mMorphColumns;
+            int  from   = -1;
+
+            path.rewind();
+
+            for (int c = 0; c <= mMorphColumns; c++) {
+                float y = Float.NaN;
+                if (c < mMorphColumns) {
+                    y = mMorphStartY[offset + c] + (mMorphEndY[offset + c] - mMorphStartY[offset + c]) * _Fraction;
+                    mMorphY[offset + c] = y;
+                }
+
+                if (!Float.isNaN(y)) {
+                    if (from < 0) {
+                        from = c;
+                        path.moveTo(getMorphColumnX(c), y);
+                    } else {
+                        path.lineTo(getMorphColumnX(c), y);
+                    }
+                } else if (from >= 0) {
+                    if (fill) {
+                        closeFill(path, getMorphColumnX(from), getMorphColumnX(c - 1), mGraphHeight,
+                                getMorphColumnX(from), mMorphY[offset + from]);
+                    }
+                    from = -1;
+                }
+            }
+        }
+
+        mGraph.invalidate();
+    }
+
+    /**
+     * Samples the drawn polyline of a series at the x-coordinates of the morph columns. Columns
+     * outside of the series or next to a gap are NaN.
+     * @param _Series The series which should be sampled.
+     * @param _Y      Array for the sampled y-coordinates.
+     * @param _Offset Index of the first column in the array.
+     */
+    private void sampleColumns(ValueLineSeries _Series, float[] _Y, int _Offset) {
+        int first = _Series.getFirstVisibleIndex();
+        int last  = Math.min(_Series.getLastVisibleIndex(), _Series.getPointCount() - 1);
+        int index = first;
+
+        for (int c = 0; c < mMorphColumns; c++) {
+            float x = getMorphColumnX(c);
+
+            if (last <= first || x < getDisplayX(_Series, first) || x > getDisplayX(_Series, last)) {
+                _Y[_Offset + c] = Float.NaN;
+                continue;
+            }
+
+            while (index < last - 1 && getDisplayX(_Series, index + 1) < x) {
+                index++;
+            }
+
+            float leftX  = getDisplayX(_Series, index);
+            float rightX = getDisplayX(_Series, index + 1);
+            float leftY  = _Series.getScreenY(index);
+            float rightY = _Series.getScreenY(index + 1);
+            float t      = rightX > leftX ? (x - leftX) / (rightX - leftX) : 0;
+
+            // a NaN value of a gap propagates to the column
+            _Y[_Offset + c] = leftY + (rightY - leftY) * t;
+        }
+    }
+
+    /**
+     * Returns the x-coordinate of a morph column.
+     * @param _Column Index of the column.
+     * @return The x-coordinate in px.
+     */
+    private float getMorphColumnX(int _Column) {
+        return Math.min(_Column * mMorphColumnWidth, mGraphWidth);
+    }
+
+    /**
+     * Makes sure that the buffer is able to hold the given amount of values.
+     * @param _Buffer The current buffer or null.
+     * @param _Size   Amount of values.
+     * @return The given buffer or a bigger one, which contains the values of the given buffer.
+     */
+    private static float[] ensureMorphBuffer(float[] _Buffer, int _Size) {
+        if (_Buffer == null) {
+            return new float[_Size];
+        }
+        if (_Buffer.length < _Size) {
+            return Arrays.copyOf(_Buffer, _Size);
+        }
+        return _Buffer;
+    }
+
+    /**
+     * Makes sure that the temporary coordinate buffers are able to hold the given amount of points.
+     * @param _Size Amount of points.
+     */
+    private void ensureCapacity(int _Size) {
+        if (mPointX == null || mPointX.length < _Size) {
+            mPointX        = new float[_Size];
+            mPointY        = new float[_Size];
+            mSampleX       = new float[_Size];
+            mSampleY       = new float[_Size];
+            mSampleIndices = new int[_Size];
+        }
     }
 
     /**
@@ -761,7 +3560,7 @@ public class ValueLineChart extends BaseChart {
      * @param _Result       Resulting point
      * @param _Multiplier   Smoothness multiplier
      */
-    private void calculatePointDiff(Point2D _P1, Point2D _P2, Point2D _Result, float _Multiplier) {
+    private static void calculatePointDiff(Point2D _P1, Point2D _P2, Point2D _Result, float _Multiplier) {
         float diffX = _P2.getX() - _P1.getX();
         float diffY = _P2.getY() - _P1.getY();
         _Result.setX(_P1.getX() + (diffX * _Multiplier));
@@ -772,16 +3571,28 @@ public class ValueLineChart extends BaseChart {
      * Calculates the text height for the indicator value and sets its x-coordinate.
      */
     private void calculateValueTextHeight() {
-        Rect rect = new Rect();
-        String str = Utils.getFloatString(mFocusedPoint.getValue(), mShowDecimal);
-        mIndicatorPaint.getTextBounds(str, 0, str.length(), rect);
-        mValueTextHeight = rect.height();
+        Rect rect  = new Rect();
+        int  width = 0;
+        mValueTextHeight = 0;
+
+        // the labels of all focused points are aligned, so the widest label is used
+        for (int s = 0; s < mFocusedIndices.length && s < mSeries.size(); s++) {
+            int index = mFocusedIndices[s];
+            if (!isFocusable(mSeries.get(s), index)) {
+                continue;
+            }
+
+            String str = Utils.getFloatString(mSeries.get(s).getValueAt(index), mShowDecimal);
+            mIndicatorPaint.getTextBounds(str, 0, str.length(), rect);
+            mValueTextHeight = Math.max(mValueTextHeight, rect.height());
+            width = Math.max(width, rect.width());
+        }
 
-        if(mFocusedPoint.getCoordinates().getX() + rect.width() + mIndicatorLeftPadding > mGraphWidth + mLeftPadding) {
-            mGraphOverlay.mValueLabelX = (int) (mFocusedPoint.getCoordinates().getX() - (rect.width() + mIndicatorLeftPadding));
+        if(mTouchedArea.getX() + width + mIndicatorLeftPadding > mGraphWidth + mLeftPadding) {
+            mGraphOverlay.mValueLabelX = (int) (mTouchedArea.getX() - (width + mIndicatorLeftPadding));
         }
         else {
-            mGraphOverlay.mValueLabelX = (int) (mFocusedPoint.getCoordinates().getX() + mIndicatorLeftPadding);
+            mGraphOverlay.mValueLabelX = (int) (mTouchedArea.getX() + mIndicatorLeftPadding);
         }
     }
 
@@ -821,7 +3632,51 @@ public class ValueLineChart extends BaseChart {
         protected void onDraw(Canvas canvas) {
             super.onDraw(canvas);
 
-            if(mUseOverlapFill) {
+            // the tiles are bypassed while the paths are transformed by the reveal animation and
+            // while a preview is shown, because the fingerprints are based on the complete layout
+            if (mMorphing) {
+                drawMorph(canvas);
+            }
+            else if (mUseTiledRendering && mScale.isIdentity() && !mPreviewActive && mGraphWidth > 0 && mGraphHeight > 0) {
+                drawTiles(canvas);
+            }
+            else {
+                drawSeries(canvas);
+            }
+        }
+
+        /**
+         * Draws the interpolated paths of a transition. Stacked series are drawn from the top to
+         * the bottom, because their paths are filled down to the bottom of the graph.
+         *
+         * @param canvas the canvas on which the series will be drawn
+         */
+        private void drawMorph(Canvas canvas) {
+            boolean fill = mUseOverlapFill || mUseStackedFill || mMorphSeriesCount == 1;
+
+            mLinePaint.setStyle(fill ? Paint.Style.FILL : Paint.Style.STROKE);
+            mLinePaint.setStrokeWidth(mLineStroke);
+
+            int saveCount = canvas.save();
+            canvas.translate(0, -mMorphOffset);
+
+            int count = Math.min(mMorphSeriesCount, mSeries.size());
+            for (int i = 0; i < count; i++) {
+                int s = mUseStackedFill ? count - 1 - i : i;
+                mLinePaint.setColor(mSeries.get(s).getColor());
+                canvas.drawPath(mMorphPaths[s], mLinePaint);
+            }
+
+            canvas.restoreToCount(saveCount);
+        }
+
+        /**
+         * Draws the paths and line segments of all series.
+         *
+         * @param canvas the canvas on which the series will be drawn
+         */
+        private void drawSeries(Canvas canvas) {
+            if(mUseOverlapFill || mUseStackedFill) {
                 mLinePaint.setStyle(Paint.Style.FILL);
             }
             else {
@@ -834,18 +3689,94 @@ public class ValueLineChart extends BaseChart {
                 }
             }
 
+            int saveCount = canvas.save();
             canvas.concat(mScale);
             if(mHasNegativeValues) {
                 canvas.translate(0, -mNegativeOffset);
             }
             // drawing of lines
+            Paint.Style style = mLinePaint.getStyle();
             for (ValueLineSeries series : mSeries) {
                 mLinePaint.setColor(series.getColor());
-                canvas.drawPath(series.getPath(), mLinePaint);
+                canvas.translate(-series.getScrollOffset(), 0);
+                if (series instanceof BandValueLineSeries) {
+                    // the envelope is filled and the center line is stroked on top of it
+                    mLinePaint.setColor(((BandValueLineSeries) series).getBandColor());
+                    mLinePaint.setStyle(Paint.Style.FILL);
+                    canvas.drawPath(series.getPath(), mLinePaint);
+
+                    mLinePaint.setColor(series.getColor());
+                    mLinePaint.setStyle(Paint.Style.STROKE);
+                    mLinePaint.setStrokeWidth(mLineStroke);
+                    mLinePaint.setStrokeCap(Paint.Cap.ROUND);
+                    canvas.drawLines(series.getLines(), 0, series.getLineCount(), mLinePaint);
+                    mLinePaint.setStrokeCap(Paint.Cap.BUTT);
+                    mLinePaint.setStyle(style);
+                } else if (series.getLineCount() > 0) {
+                    // round caps close the gaps between the single segments at the joints
+                    mLinePaint.setStrokeCap(Paint.Cap.ROUND);
+                    canvas.drawLines(series.getLines(), 0, series.getLineCount(), mLinePaint);
+                    mLinePaint.setStrokeCap(Paint.Cap.BUTT);
+                } else {
+                    canvas.drawPath(series.getPath(), mLinePaint);
+                }
+                canvas.translate(series.getScrollOffset(), 0);
+            }
+
+            canvas.restoreToCount(saveCount);
+        }
+
+        /**
+         * Draws the cached tiles which intersect the visible area. Missing and outdated tiles are
+         * rendered first.
+         *
+         * @param canvas the canvas on which the tiles will be drawn
+         */
+        private void drawTiles(Canvas canvas) {
+            if (mTilesDirty) {
+                calculateTileHashes();
+            }
+            if (!canvas.getClipBounds(mTileClip)) {
+                return;
+            }
+
+            int firstTile = Math.max(0, mTileClip.left / mTileWidth);
+            int lastTile  = Math.min(mTileHashes.length - 1, (mTileClip.right - 1) / mTileWidth);
+
+            for (int tile = firstTile; tile <= lastTile; tile++) {
+                Bitmap bitmap = mTileCache.get(tile);
+                if (bitmap == null || bitmap.getHeight() != mGraphHeight || mRenderedTileHashes[tile] != mTileHashes[tile]) {
+                    bitmap = renderTile(tile, bitmap);
+                    mTileCache.put(tile, bitmap);
+                }
+                canvas.drawBitmap(bitmap, tile * mTileWidth, 0, null);
+            }
+        }
+
+        /**
+         * Renders the series into the bitmap of a tile. The bitmap of an outdated tile is reused.
+         *
+         * @param _Tile   Index of the tile.
+         * @param _Bitmap The outdated bitmap of the tile or null.
+         * @return The rendered bitmap.
+         */
+        private Bitmap renderTile(int _Tile, Bitmap _Bitmap) {
+            if (_Bitmap == null || _Bitmap.getHeight() != mGraphHeight) {
+                _Bitmap = Bitmap.createBitmap(mTileWidth, mGraphHeight, Bitmap.Config.ARGB_8888);
+            }
+            else {
+                _Bitmap.eraseColor(Color.TRANSPARENT);
             }
 
-            canvas.restore();
+            mTileCanvas.setBitmap(_Bitmap);
+            int saveCount = mTileCanvas.save();
+            mTileCanvas.translate(-_Tile * mTileWidth, 0);
+            drawSeries(mTileCanvas);
+            mTileCanvas.restoreToCount(saveCount);
+            mTileCanvas.setBitmap(null);
 
+            mRenderedTileHashes[_Tile] = mTileHashes[_Tile];
+            return _Bitmap;
         }
 
         /**
@@ -907,16 +3838,27 @@ public class ValueLineChart extends BaseChart {
             );
 
             // draw touch indicator
-            if(mShowIndicator && mSeries.size() == 1) {
+            if(mShowIndicator && !mSeries.isEmpty()) {
                 mIndicatorPaint.setColor(mIndicatorColor);
                 mIndicatorPaint.setStrokeWidth(mIndicatorWidth);
                 canvas.drawLine(mTouchedArea.getX(), 0, mTouchedArea.getX(), mGraphHeight, mIndicatorPaint);
 
-                if(mFocusedPoint != null) {
-                    canvas.drawText(Utils.getFloatString(mFocusedPoint.getValue(), mShowDecimal),
-                            mValueLabelX,
-                            mValueTextHeight + mIndicatorTopPadding,
-                            mIndicatorPaint);
+                // the values of multiple series are drawn below each other in the color of the series
+                int line = 0;
+                for (int s = 0; s < mFocusedIndices.length && s < mSeries.size(); s++) {
+                    ValueLineSeries series = mSeries.get(s);
+                    int             index  = mFocusedIndices[s];
+
+                    if(isFocusable(series, index)) {
+                        if (mSeries.size() > 1) {
+                            mIndicatorPaint.setColor(series.getColor());
+                        }
+                        canvas.drawText(Utils.getFloatString(series.getValueAt(index), mShowDecimal),
+                                mValueLabelX,
+                                (mValueTextHeight + mIndicatorTopPadding) * (line + 1),
+                                mIndicatorPaint);
+                        line++;
+                    }
                 }
             }
 
@@ -976,8 +3918,14 @@ public class ValueLineChart extends BaseChart {
 
             performClick();
 
-            float newX = event.getX();
-            float newY = event.getY();
+            // dragging moves the viewport instead of the indicator, which is moved by tapping
+            if (mUseViewport) {
+                mScaleDetector.onTouchEvent(event);
+                if (!mScaleDetector.isInProgress()) {
+                    mGestureDetector.onTouchEvent(event);
+                }
+                return true;
+            }
 
             switch (event.getAction()) {
                 case MotionEvent.ACTION_DOWN:
@@ -989,69 +3937,29 @@ public class ValueLineChart extends BaseChart {
                 case MotionEvent.ACTION_UP:
 
 
-                    break;
-            }
-
-            if(mShowIndicator && mSeries.size() == 1) {
-                int size       = mSeries.get(0).getSeries().size();
-
-                for (int i = 0; i < size; i++) {
-
-                    // check if touchedX equals one the points
-                    if (mSeries.get(0).getSeries().get(i).getCoordinates().getX() == newX) {
-                        mFocusedPoint = mSeries.get(0).getSeries().get(i);
-                        break;
-                    } else {
-                        // check if we reached the last when --> (true) use last point
-                        if (i == size - 1) {
-                            mFocusedPoint = mSeries.get(0).getSeries().get(i);
-                            break;
-                        } else {
-                            float x = mSeries.get(0).getSeries().get(i).getCoordinates().getX();
-                            float nextX = mSeries.get(0).getSeries().get(i + 1).getCoordinates().getX();
-
-                            // check if touchedX is between two points
-                            if (newX > x && newX < nextX) {
-                                // check which distance between touchedX and the two points is smaller
-                                if (newX - x > nextX - newX) {
-                                    mFocusedPoint = mSeries.get(0).getSeries().get(i + 1);
-                                    break;
-                                } else {
-                                    mFocusedPoint = mSeries.get(0).getSeries().get(i);
-                                    break;
-                                }
-                            }
-                            //check if touchedX distance between the points is equal -> choose first Point
-                            else if (newX > x && newX < nextX) {
-                                mFocusedPoint = mSeries.get(0).getSeries().get(i);
-                                break;
-                            }
-                        }
-                    }
-                }
-
-                if (mFocusedPoint != null) {
-                    mTouchedArea = mFocusedPoint.getCoordinates();
-
-                } else {
-                    mTouchedArea.setX(newX);
-                    mTouchedArea.setY(newY);
-                }
+                    break;
+            }
 
-                if(mLastPoint != mFocusedPoint) {
-                    mLastPoint = mFocusedPoint;
+            focusPoint(event.getX(), event.getY());
+            return true;
+        }
 
+        /**
+         * Moves the indicator to the point which is nearest to the given position.
+         * @param _X x-coordinate of the touch
+         * @param _Y y-coordinate of the touch
+         */
+        private void focusPoint(float _X, float _Y) {
+            if(mShowIndicator && !mSeries.isEmpty()) {
+                if (focusAt(_X)) {
+                    updateTouchedArea(_X, _Y);
                     calculateValueTextHeight();
-
-                    if (mListener != null) {
-                        mListener.onPointFocused(mSeries.get(0).getSeries().indexOf(mFocusedPoint));
-                    }
+                    notifyFocusChanged();
                 }
 
                 invalidate();
                 mLegend.invalidate();
             }
-            return true;
         }
 
         @Override
@@ -1059,10 +3967,46 @@ public class ValueLineChart extends BaseChart {
             return super.performClick();
         }
 
-        private ValueLinePoint mLastPoint = null;
         private int            mValueLabelX = 0;
     }
 
+    //##############################################################################################
+    // Viewport Gestures
+    //##############################################################################################
+
+    /**
+     * Moves the viewport while dragging and moves the indicator on a tap.
+     */
+    private class ViewportGestureListener extends GestureDetector.SimpleOnGestureListener {
+        @Override
+        public boolean onDown(MotionEvent e) {
+            return true;
+        }
+
+        @Override
+        public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+            setViewportOffset(mViewportOffset + distanceX);
+            return true;
+        }
+
+        @Override
+        public boolean onSingleTapUp(MotionEvent e) {
+            mGraphOverlay.focusPoint(e.getX(), e.getY());
+            return true;
+        }
+    }
+
+    /**
+     * Zooms the viewport around the focus of the pinch gesture.
+     */
+    private class ViewportScaleListener extends ScaleGestureDetector.SimpleOnScaleGestureListener {
+        @Override
+        public boolean onScale(ScaleGestureDetector detector) {
+            zoomViewport(detector.getScaleFactor(), detector.getFocusX());
+            return true;
+        }
+    }
+
     //##############################################################################################
     // Legend
     //##############################################################################################
@@ -1097,8 +4041,7 @@ public class ValueLineChart extends BaseChart {
                         canvas.drawLine(bounds.centerX(), bounds.centerY() - textBounds.height() - mLegendTopPadding, bounds.centerX(), mLegendTopPadding, mLegendPaint);
                     }
                 } else {
-                    List<? extends BaseModel> list = mSeries.get(0).getSeries();
-                    for (BaseModel model : list) {
+                    for (BaseModel model : mSeriesLegend) {
                         if (model.canShowLabel()) {
                             RectF bounds = model.getLegendBounds();
                             canvas.drawText(model.getLegendLabel(), model.getLegendLabelPosition(), bounds.bottom - mMaxFontHeight, mLegendPaint);
@@ -1138,8 +4081,12 @@ public class ValueLineChart extends BaseChart {
 
     private static final String LOG_TAG = ValueLineChart.class.getSimpleName();
 
+    private static final String LAYOUT_THREAD_NAME = "ValueLineChart layout";
+
     public static final boolean DEF_USE_CUBIC                       = false;
+    public static final boolean DEF_USE_MONOTONE_CUBIC              = false;
     public static final boolean DEF_USE_OVERLAP_FILL                = false;
+    public static final boolean DEF_USE_STACKED_FILL                = false;
     public static final float   DEF_LINE_STROKE                     = 5f;
     public static final float   DEF_FIRST_MULTIPLIER                = 0.33f;
     public static final boolean DEF_SHOW_INDICATOR                  = true;
@@ -1156,6 +4103,85 @@ public class ValueLineChart extends BaseChart {
     public static final float   DEF_X_AXIS_STROKE                   = 2f;
     public static final float   DEF_LEGEND_STROKE                   = 2f;
 
+    /**
+     * Every point of a series is part of the path.
+     */
+    public static final int     DOWNSAMPLING_NONE                   = 0;
+
+    /**
+     * Series are reduced with the Largest-Triangle-Three-Buckets algorithm.
+     */
+    public static final int     DOWNSAMPLING_LTTB                   = 1;
+
+    /**
+     * Series are reduced to the first, last, minimum and maximum point of every pixel column.
+     */
+    public static final int     DOWNSAMPLING_M4                     = 2;
+
+    public static final int     DEF_DOWNSAMPLING_MODE               = DOWNSAMPLING_NONE;
+    // in dp, 0 disables the simplification
+    public static final float   DEF_SIMPLIFY_TOLERANCE              = 0f;
+    public static final boolean DEF_ASYNC_LAYOUT                    = false;
+    public static final boolean DEF_PROGRESSIVE_LAYOUT              = false;
+    public static final boolean DEF_USE_VIEWPORT                    = false;
+    public static final boolean DEF_AUTO_SCALE_VIEWPORT             = false;
+    public static final boolean DEF_USE_CACHED_REVEAL               = false;
+
+    /**
+     * Every visible point of the first series is a legend candidate.
+     */
+    public static final int     LEGEND_POINTS                       = 0;
+
+    /**
+     * Only ticks, which are chosen from the available width and the estimated label width, are
+     * legend candidates. Only the labels of the ticks are requested and measured.
+     */
+    public static final int     LEGEND_TICKS                        = 1;
+
+    public static final int     DEF_LEGEND_MODE                     = LEGEND_POINTS;
+    public static final boolean DEF_USE_TILED_RENDERING             = false;
+    // in kB
+    public static final int     DEF_TILE_CACHE_SIZE                 = 8 * 1024;
+
+    /**
+     * Factor between the strides of two levels of the progressive layout.
+     */
+    private static final int    PROGRESSIVE_LEVEL_FACTOR            = 8;
+
+    /**
+     * Distance between two sampled columns of a transition in dp.
+     */
+    private static final float  MORPH_COLUMN_WIDTH                  = 2.f;
+
+    /**
+     * Minimum amount of points which are kept, when a series is downsampled.
+     */
+    private static final int    MIN_DOWNSAMPLING_THRESHOLD          = 3;
+    /**
+     * Minimum distance between two legend ticks in dp.
+     */
+    private static final float  MIN_LEGEND_CANDIDATE_DISTANCE       = 20.f;
+    /**
+     * Space between two legend labels in dp, which is added to the estimated label width.
+     */
+    private static final float  LEGEND_TEXT_MARGIN                  = 10.f;
+    /**
+     * Minimum amount of points which stay visible when the viewport is zoomed in.
+     */
+    private static final int    MIN_VISIBLE_POINTS                  = 2;
+    /**
+     * Width of a tile of the tiled rendering in dp.
+     */
+    private static final float  TILE_WIDTH                          = 256.f;
+    /**
+     * Initial capacity of the buffer for values which are appended live.
+     */
+    private static final int    PENDING_CAPACITY                    = 64;
+    /**
+     * Delay in ms until appended values are applied, if the Choreographer is not available.
+     */
+    private static final long   LIVE_FRAME_DELAY                    = 16;
+
     private int                     mUseableGraphHeight;
 
     private Graph                   mGraph;
@@ -1171,26 +4197,63 @@ public class ValueLineChart extends BaseChart {
     private float                   mStandardValueY;
     private List<LegendModel>       mLegendList;
 
+    /**
+     * The models which are used for the automatic legend. This is calculated dynamically.
+     */
+    private List<? extends BaseModel> mSeriesLegend      = new ArrayList<BaseModel>();
+    private List<LegendModel>       mTickLegendPool     = new ArrayList<LegendModel>();
+
     private boolean                 mHasNegativeValues  = false;
     private float                   mNegativeValue      = 0.f;
     private float                   mNegativeOffset     = 0.f;
 
     private IOnPointFocusedListener mListener = null;
+    private IOnPointsFocusedListener mPointsListener = null;
 
     private float                   mFirstMultiplier;
     private float                   mSecondMultiplier;
 
     private boolean                 mUseCustomLegend = false;
     private Point2D                 mTouchedArea     = new Point2D(0, 0);
-    private ValueLinePoint          mFocusedPoint    = null;
+    private int                     mFocusedIndex    = -1;
+
+    /**
+     * The focused point of every series or -1 if a series has no visible point.
+     */
+    private int[]                   mFocusedIndices  = new int[0];
+
+    /**
+     * Copy of the focused indices, which is passed to the IOnPointsFocusedListener.
+     */
+    private int[]                   mNotifiedIndices = new int[0];
+
+    /**
+     * The merged x index of the visible points of all series. mFocusColumns holds the sorted pixel
+     * columns and mFocusFloors the last point of every series for each column, one row of
+     * mSeries.size() indices per column. The index is built with the scroll offset
+     * mFocusIndexScroll of the first series.
+     */
+    private int[]                   mFocusColumns     = new int[0];
+    private int[]                   mFocusFloors      = new int[0];
+    private int[]                   mFocusHeads       = new int[0];
+    private int                     mFocusEntryCount  = 0;
+    private float                   mFocusIndexScroll = 0;
+    private boolean                 mFocusIndexValid  = false;
+
     private float                   mValueTextHeight;
 
     private boolean                 mUseCubic;
+    private boolean                 mUseMonotoneCubic;
 
     /**
      * Indicates to fill the bottom area of a series with its given color.
      */
     private boolean                 mUseOverlapFill;
+
+    /**
+     * Indicates to draw every series as a band on top of the previous series.
+     */
+    private boolean                 mUseStackedFill;
     private float                   mLineStroke;
     private boolean                 mShowIndicator;
     private float                   mIndicatorWidth;
@@ -1202,6 +4265,488 @@ public class ValueLineChart extends BaseChart {
     private float                   mStandardValueIndicatorStroke;
     private int                     mStandardValueColor;
     private float                   mXAxisStroke;
+    private int                     mDownsamplingMode;
+    private float                   mSimplifyTolerance;
+
+    /**
+     * The range of the explicit x-values of all series and the reused mapping to the content. These
+     * are calculated dynamically.
+     */
+    private double                  mXMin;
+    private double                  mXMax;
+    private final XAxis             mXAxis = new XAxis();
+    private int                     mLegendMode;
+
+    /**
+     * The y-scale of the last layout pass.
+     */
+    private float                   mLastHeightMultiplier;
+    private float                   mLastBaseline;
+
+    /**
+     * Temporary buffers for the coordinates of the currently calculated series. They are reused
+     * between layout passes and only grow if a bigger series is inserted.
+     */
+    private float[]                 mPointX;
+    private float[]                 mPointY;
+    private float[]                 mSampleX;
+    private float[]                 mSampleY;
+    private int[]                   mSampleIndices;
+
+    /**
+     * The y-coordinates of the upper and the lower outline of a band series. They are only
+     * allocated if a band series is drawn and are reused between layout passes.
+     */
+    private float[]                 mEnvelopeUpperY;
+    private float[]                 mEnvelopeLowerY;
+
+    /**
+     * The running sums of the stacked values per point index and the outline of the previously
+     * stacked series. These are reused between layout passes.
+     */
+    private float[]                 mStackSums;
+    private float[]                 mStackBaseX;
+    private float[]                 mStackBaseY;
+
+    /**
+     * The layout state of the scrolling series, which is only kept as long as the series exist.
+     */
+    private final Map<RingBufferValueLineSeries, RingLayout> mRingLayouts =
+            new WeakHashMap<RingBufferValueLineSeries, RingLayout>();
 
     protected Matrix                mScale = new Matrix();
+
+    private boolean                 mUseCachedReveal;
+
+    private boolean                 mUseTiledRendering;
+    private int                     mTileCacheSize;
+    private int                     mTileWidth;
+    private LruCache<Integer, Bitmap> mTileCache;
+    private Canvas                  mTileCanvas;
+    private final Rect              mTileClip = new Rect();
+
+    /**
+     * The fingerprint of the current geometry of every tile and the fingerprint of the geometry
+     * which was rendered into the cached bitmap. These are calculated dynamically.
+     */
+    private long[]                  mTileHashes;
+    private long[]                  mRenderedTileHashes;
+    private boolean                 mTilesDirty = true;
+
+    /**
+     * Indicates that the reveal animation transforms the layer of the graph instead of the paths.
+     */
+    private boolean                 mCachedRevealRunning = false;
+
+    private boolean                 mAsyncLayout;
+    private Executor                mLayoutExecutor = null;
+    private boolean                 mProgressiveLayout;
+
+    /**
+     * Indicates that the paths currently show a preview of the progressive layout.
+     */
+    private boolean                 mPreviewActive = false;
+
+    /**
+     * The series are sampled at fixed columns for a transition, so start and end geometry have the
+     * same size, regardless of the amount of points. The sampled y-coordinates of all series are
+     * stored in a row, the interpolated coordinates are kept to continue an interrupted transition.
+     */
+    private final float             mMorphColumnWidth = Utils.dpToPx(MORPH_COLUMN_WIDTH);
+    private int                     mMorphColumns     = 0;
+    private float[]                 mMorphStartY;
+    private float[]                 mMorphEndY;
+    private float[]                 mMorphY;
+    private int                     mMorphStartSeriesCount = 0;
+    private int                     mMorphSeriesCount = 0;
+    private Path[]                  mMorphPaths;
+
+    /**
+     * The negative offset at the start and the end of a transition and the interpolated offset.
+     */
+    private float                   mMorphStartOffset;
+    private float                   mMorphEndOffset;
+    private float                   mMorphOffset;
+
+    /**
+     * The layout generation, whose asynchronous result ends a pending transition, or -1.
+     */
+    private int                     mMorphGeneration  = -1;
+
+    private boolean                 mUseViewport;
+    private GestureDetector         mGestureDetector;
+    private ScaleGestureDetector    mScaleDetector;
+
+    /**
+     * The zoom of the viewport and the distance between the start of the zoomed series and the
+     * left border of the viewport in px.
+     */
+    private float                   mZoom           = 1.f;
+    private float                   mViewportOffset = 0.f;
+    private boolean                 mAutoScaleViewport;
+
+    /**
+     * Incremented with every data change. Only layout results of the current generation are
+     * published. It is read by the layout executor to drop outdated snapshots early.
+     */
+    private volatile int            mLayoutGeneration = 0;
+
+    /**
+     * The newest snapshot, which was not yet picked up by the layout executor.
+     */
+    private final AtomicReference<LayoutSnapshot> mPendingSnapshot = new AtomicReference<LayoutSnapshot>();
+
+    /**
+     * The last snapshot, which values were copied by the layout executor.
+     */
+    private final AtomicReference<LayoutSnapshot> mCopiedSnapshot = new AtomicReference<LayoutSnapshot>();
+
+    /**
+     * True while the layout of a data change wasn't published yet.
+     */
+    private boolean                 mDataLayoutPending = false;
+
+    /**
+     * The viewport of the published asynchronous layout.
+     */
+    private float                   mLayoutZoom           = 1.f;
+    private float                   mLayoutViewportOffset = 0.f;
+
+    /**
+     * The buffers of the published layout, which are referenced by the series, and a spare set of
+     * buffers for the next layout pass.
+     */
+    private LayoutBuffers           mPublishedBuffers = null;
+    private final AtomicReference<LayoutBuffers> mSpareBuffers = new AtomicReference<LayoutBuffers>();
+
+    private final Runnable          mLayoutTask = new Runnable() {
+        @Override
+        public void run() {
+            LayoutSnapshot snapshot = mPendingSnapshot.getAndSet(null);
+            if (snapshot == null || !copyPointValues(snapshot)) {
+                return;
+            }
+
+            // the finer previews are published one after another, unless newer data is waiting
+            for (int stride = snapshot.previewStride; stride > 1; stride /= PROGRESSIVE_LEVEL_FACTOR) {
+                if (mPendingSnapshot.get() != null) {
+                    return;
+                }
+
+                final LayoutResult preview = calculateLayout(sampleSnapshot(snapshot, stride), obtainLayoutBuffers());
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        applyPreview(preview);
+                    }
+                });
+            }
+
+            final LayoutResult result = calculateLayout(snapshot, obtainLayoutBuffers());
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    applyLayout(result);
+                }
+            });
+        }
+    };
+
+    private static Executor         sDefaultLayoutExecutor = null;
+
+    /**
+     * Values which were appended with appendLive() and are applied with the next frame. The applied
+     * buffers are swapped with the pending buffers, so no buffer is allocated per frame.
+     */
+    private final Object            mPendingLock    = new Object();
+    private ValueLineSeries[]       mPendingSeries  = new ValueLineSeries[PENDING_CAPACITY];
+    private float[]                 mPendingValues  = new float[PENDING_CAPACITY];
+    private int                     mPendingCount   = 0;
+    private ValueLineSeries[]       mAppliedSeries  = new ValueLineSeries[PENDING_CAPACITY];
+    private float[]                 mAppliedValues  = new float[PENDING_CAPACITY];
+    private boolean                 mLiveFrameScheduled = false;
+
+    /**
+     * Posts the live frames and the results of the layout executor to the UI thread.
+     */
+    private Handler                 mMainHandler;
+    private Choreographer           mChoreographer;
+    private Choreographer.FrameCallback mLiveFrameCallback = null;
+
+    private final Runnable          mLiveFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            applyPendingAppends();
+        }
+    };
+
+    /**
+     * Returns the executor which is shared by all charts without an own layout executor. Its thread
+     * is a daemon with background priority, so it neither keeps the process alive nor competes with
+     * the UI thread.
+     * @return The default layout executor.
+     */
+    private static synchronized Executor getDefaultLayoutExecutor() {
+        if (sDefaultLayoutExecutor == null) {
+            sDefaultLayoutExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable _Runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            _Runnable.run();
+                        }
+                    }, LAYOUT_THREAD_NAME);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sDefaultLayoutExecutor;
+    }
+
+    /**
+     * Maps the points of a series to x-coordinates of the content. Series with explicit x-values are
+     * placed with a linear transform, which is calculated once per layout pass, and their visible
+     * range is found with a binary search. All other series are distributed uniformly.
+     */
+    private static class XAxis {
+
+        void setUniform(int _Count, float _ContentWidth) {
+            mValues       = null;
+            mCount        = _Count;
+            mContentWidth = _ContentWidth;
+            mWidthOffset  = calculateWidthOffset(_Count, _ContentWidth);
+        }
+
+        void setExplicit(double[] _Values, int _Count, float _ContentWidth, double _Min, double _Max) {
+            mValues       = _Values;
+            mCount        = _Count;
+            mContentWidth = _ContentWidth;
+            mMin          = _Min;
+            mScale        = _Max > _Min ? _ContentWidth / (_Max - _Min) : 0;
+            // the average distance is used for the legend
+            mWidthOffset  = _Count > 1 ? _ContentWidth / (_Count - 1) : _ContentWidth;
+        }
+
+        float getWidthOffset() {
+            return mWidthOffset;
+        }
+
+        float getContentX(int _Index) {
+            if (mValues == null) {
+                return ValueLineChart.getContentX(_Index, mCount, mWidthOffset, mContentWidth);
+            }
+            return (float) ((mValues[_Index] - mMin) * mScale);
+        }
+
+        int getFirstVisibleIndex(float _ViewportOffset) {
+            if (mValues == null) {
+                return ValueLineChart.getFirstVisibleIndex(mCount, mWidthOffset, _ViewportOffset);
+            }
+            if (mScale == 0) {
+                return 0;
+            }
+            int index = Utils.findFloorIndex(mValues, mCount, mMin + _ViewportOffset / mScale);
+            return Math.max(0, Math.min(mCount - 1, index));
+        }
+
+        int getLastVisibleIndex(float _ViewportOffset, int _GraphWidth) {
+            if (mValues == null) {
+                return ValueLineChart.getLastVisibleIndex(mCount, mWidthOffset, _ViewportOffset, _GraphWidth);
+            }
+            if (mScale == 0) {
+                return mCount - 1;
+            }
+            // the first point right of the viewport is needed as well
+            int index = Utils.findFloorIndex(mValues, mCount, mMin + (_ViewportOffset + _GraphWidth) / mScale);
+            return Math.max(0, Math.min(mCount - 1, index + 1));
+        }
+
+        /**
+         * The explicit x-values or null, if the points are distributed uniformly.
+         */
+        private double[] mValues;
+        private int      mCount;
+        private float    mContentWidth;
+        private float    mWidthOffset;
+        private double   mMin;
+        private double   mScale;
+    }
+
+    /**
+     * The state of a scrolling series between layout passes, which decides if only the appended
+     * points have to be calculated.
+     */
+    private static class RingLayout {
+
+        boolean isPathExtendable(boolean _Filled) {
+            return pathExtendable && pathFilled == _Filled;
+        }
+
+        void setPathExtendable(boolean _PathExtendable, boolean _Filled) {
+            pathExtendable = _PathExtendable;
+            pathFilled     = _Filled;
+        }
+
+        /**
+         * The evicted count at the time of the last layout pass or -1 if the series has to be
+         * calculated completely.
+         */
+        long    layoutSequence = -1;
+
+        /**
+         * True if the series was full at the time of the last layout pass.
+         */
+        boolean layoutFull;
+
+        /**
+         * The evicted count at the time the coordinates were calculated completely. The coordinates
+         * of the points are relative to this point.
+         */
+        long    layoutBase;
+
+        /**
+         * Indicates that the path was built without cubic lines and downsampling, so that appended
+         * points can be added as simple line segments.
+         */
+        boolean pathExtendable;
+        boolean pathFilled;
+
+        /**
+         * Open outline of the series, which is extended with every appended point. Only used for
+         * filled series.
+         */
+        final Path outlinePath = new Path();
+    }
+
+    /**
+     * Copy of the data and settings which are needed to calculate the geometry. The series are only
+     * referenced to publish the result on the UI thread.
+     */
+    private static class LayoutSnapshot implements Cloneable {
+        int               generation;
+        ValueLineSeries[] series;
+
+        /**
+         * The data arrays may be shared with the series, so only the first counts[i] values of
+         * them are valid.
+         */
+        int[]             counts;
+        float[][]         values;
+        double[][]        xValues;
+        float[][]         lowerValues;
+        float[][]         upperValues;
+        double            xMin;
+        double            xMax;
+
+        int               graphWidth;
+        int               graphHeight;
+        float             useableGraphHeight;
+        float             topPadding;
+        float             leftPadding;
+        float             legendHeight;
+        boolean           useCubic;
+        boolean           useMonotoneCubic;
+        boolean           useFill;
+        boolean           useStackedFill;
+        float             firstMultiplier;
+        float             secondMultiplier;
+        boolean           showStandardValue;
+        float             standardValue;
+        int               downsamplingMode;
+        float             simplifyTolerance;
+        float             zoom;
+        float             viewportOffset;
+        boolean           autoScaleViewport;
+
+        int               legendStride;
+        int[]             legendIndices;
+        String[]          legendLabels;
+        Paint             legendPaint;
+
+        /**
+         * Stride of the finest preview which is calculated before the complete layout, or 1.
+         */
+        int               previewStride;
+
+        /**
+         * True if only the viewport changed since the last published layout.
+         */
+        boolean           viewportOnly;
+
+        /**
+         * Creates a shallow copy of the snapshot.
+         * @return The copy.
+         */
+        LayoutSnapshot copy() {
+            try {
+                return (LayoutSnapshot) clone();
+            } catch (CloneNotSupportedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    /**
+     * The buffers of the asynchronous layout. The paths and the line arrays are handed to the series,
+     * so a set of buffers is only reused after the geometry of a newer layout pass was published.
+     */
+    private static class LayoutBuffers {
+
+        void ensureSeriesCount(int _Count) {
+            if (paths.length < _Count) {
+                Path[] newPaths = Arrays.copyOf(paths, _Count);
+                for (int i = paths.length; i < _Count; i++) {
+                    newPaths[i] = new Path();
+                }
+                paths   = newPaths;
+                lines   = Arrays.copyOf(lines, _Count);
+                screenX = Arrays.copyOf(screenX, _Count);
+                screenY = Arrays.copyOf(screenY, _Count);
+            }
+        }
+
+        Path[]    paths   = new Path[0];
+        float[][] lines   = new float[0][];
+        float[][] screenX = new float[0][];
+        float[][] screenY = new float[0][];
+
+        float[]   sampleX;
+        float[]   sampleY;
+        int[]     indices;
+        float[]   upperY;
+        float[]   lowerY;
+        float[]   sums;
+    }
+
+    /**
+     * The geometry which was calculated from a {@link LayoutSnapshot}.
+     */
+    private static class LayoutResult {
+        int               generation;
+        ValueLineSeries[] series;
+        LayoutBuffers     buffers;
+        boolean           viewportOnly;
+
+        float[][]         screenX;
+        float[][]         screenY;
+        int[]             firstVisible;
+        int[]             lastVisible;
+        float[]           widthOffsets;
+        Path[]            paths;
+        float[][]         lines;
+        int[]             lineCounts;
+        List<LegendModel> legend;
+
+        float             zoom;
+        float             viewportOffset;
+        float             heightMultiplier;
+        float             baseline;
+        float             negativeValue;
+        float             negativeOffset;
+        boolean           hasNegativeValues;
+        float             standardValueY;
+    }
 }
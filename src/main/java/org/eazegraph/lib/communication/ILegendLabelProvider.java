@@ -0,0 +1,32 @@
+/**
+ *
+ *   Copyright (C) 2014 Paul Cech
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.eazegraph.lib.communication;
+
+/**
+ * Provides legend labels for series which don't store a label for every point.
+ */
+public interface ILegendLabelProvider {
+
+    /**
+     * Called when the legend label of a point is needed. Only labels which are displayed are requested.
+     * @param _Index Position of the point in the series.
+     * @param _Value Value of the point.
+     * @return The legend label of the point.
+     */
+    String getLegendLabel(int _Index, float _Value);
+}
@@ -0,0 +1,33 @@
+/**
+ *
+ *   Copyright (C) 2014 Paul Cech
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.eazegraph.lib.communication;
+
+/**
+ * Focus change listener for the points of all series of a ValueLineChart
+ */
+public interface IOnPointsFocusedListener {
+
+    /**
+     * Called when the focused point of at least one series in the ValueLineChart changed
+     * @param _PointPositions List position of the focused point for every series, in the order of
+     *                        the series. -1 if a series has no visible point. The array is
+     *                        reused and only valid during the call, it has to be copied to be
+     *                        kept.
+     */
+    void onPointsFocused(int[] _PointPositions);
+}
@@ -0,0 +1,226 @@
+/**
+ *
+ *   Copyright (C) 2014 Paul Cech
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.eazegraph.lib.models;
+
+import org.eazegraph.lib.utils.RangeMinMaxIndex;
+
+import java.util.Arrays;
+
+/**
+ * A {@link org.eazegraph.lib.models.ColumnarValueLineSeries} whose points describe aggregated
+ * buckets with a minimum, a maximum and a center value, e.g. the mean. The
+ * {@link org.eazegraph.lib.charts.ValueLineChart} draws the range between the minimum and the
+ * maximum as a filled envelope and the center values as a line on top of it. So the spread of the
+ * raw samples stays visible, although only a few hundred buckets are drawn.
+ *
+ * The center values are the values of the series, which are focused by the indicator and passed to
+ * the legend label provider. Band series are always drawn with straight lines and are not stacked
+ * or downsampled.
+ */
+public class BandValueLineSeries extends ColumnarValueLineSeries {
+
+    public BandValueLineSeries() {
+        this(DEF_CAPACITY);
+    }
+
+    public BandValueLineSeries(int _initialCapacity) {
+        super(_initialCapacity);
+        mLower = new float[Math.max(_initialCapacity, 1)];
+        mUpper = new float[Math.max(_initialCapacity, 1)];
+    }
+
+    /**
+     * Creates a series which uses a copy of the given values.
+     * @param _min    The minimum of every bucket.
+     * @param _max    The maximum of every bucket.
+     * @param _center The center value of every bucket.
+     * @param _count  Amount of valid buckets in the arrays.
+     */
+    public BandValueLineSeries(float[] _min, float[] _max, float[] _center, int _count) {
+        this(_count);
+        setValues(_min, _max, _center, _count);
+    }
+
+    /**
+     * Appends a bucket to the series.
+     * @param _min    The minimum of the bucket.
+     * @param _max    The maximum of the bucket.
+     * @param _center The center value of the bucket.
+     */
+    public void addValue(float _min, float _max, float _center) {
+        int count = getPointCount();
+        ensureWritable(count);
+        if (count == mLower.length) {
+            mLower = Arrays.copyOf(mLower, count * 2);
+            mUpper = Arrays.copyOf(mUpper, count * 2);
+        }
+        mLower[count] = _min;
+        mUpper[count] = _max;
+        mLowerIndex.update(mLower, count + 1, count);
+        mUpperIndex.update(mUpper, count + 1, count);
+        super.addValue(_center);
+    }
+
+    /**
+     * Replaces the buckets of the series with a copy of the given values.
+     * @param _min    The minimum of every bucket.
+     * @param _max    The maximum of every bucket.
+     * @param _center The center value of every bucket.
+     * @param _count  Amount of valid buckets in the arrays.
+     */
+    public void setValues(float[] _min, float[] _max, float[] _center, int _count) {
+        ensureWritable(0);
+        if (mLower.length < _count) {
+            mLower = new float[_count];
+            mUpper = new float[_count];
+        }
+        System.arraycopy(_min, 0, mLower, 0, _count);
+        System.arraycopy(_max, 0, mUpper, 0, _count);
+        mLowerIndex.rebuild(mLower, _count);
+        mUpperIndex.rebuild(mUpper, _count);
+        super.setValues(_center, _count);
+    }
+
+    /**
+     * Appends a bucket which only contains the given value, so its envelope is empty.
+     * @param _value The value which should be appended.
+     */
+    @Override
+    public void addValue(float _value) {
+        addValue(_value, _value, _value);
+    }
+
+    /**
+     * Replaces the buckets of the series with buckets which only contain the given values, so their
+     * envelope is empty.
+     * @param _values The values of the buckets.
+     * @param _count  Amount of valid values in the array.
+     */
+    @Override
+    public void setValues(float[] _values, int _count) {
+        setValues(_values, _values, _values, _count);
+    }
+
+    /**
+     * Removes all buckets. The allocated arrays are kept and will be reused.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        mLowerIndex.clear();
+        mUpperIndex.clear();
+    }
+
+    /**
+     * Returns the minimum of a bucket.
+     * @param _index Index of the bucket.
+     * @return The minimum.
+     */
+    public float getLowerAt(int _index) {
+        checkBucket(_index);
+        return mLower[_index];
+    }
+
+    /**
+     * Returns the maximum of a bucket.
+     * @param _index Index of the bucket.
+     * @return The maximum.
+     */
+    public float getUpperAt(int _index) {
+        checkBucket(_index);
+        return mUpper[_index];
+    }
+
+    /**
+     * Returns the backing array of the minimums. Only the first getPointCount() values are valid.
+     * The array must not be modified.
+     * @return The minimums.
+     */
+    public float[] getLowerValues() {
+        return mLower;
+    }
+
+    /**
+     * Returns the backing array of the maximums. Only the first getPointCount() values are valid.
+     * The array must not be modified.
+     * @return The maximums.
+     */
+    public float[] getUpperValues() {
+        return mUpper;
+    }
+
+    /**
+     * Returns the maximum of the envelope and the center values of a range in O(log n).
+     */
+    @Override
+    public float getMaxValue(int _from, int _to) {
+        return Math.max(mUpperIndex.getMax(mUpper, _from, _to), super.getMaxValue(_from, _to));
+    }
+
+    /**
+     * Returns the minimum of the envelope and the center values of a range in O(log n).
+     */
+    @Override
+    public float getMinValue(int _from, int _to) {
+        return Math.min(mLowerIndex.getMin(mLower, _from, _to), super.getMinValue(_from, _to));
+    }
+
+    /**
+     * Returns the color of the envelope. If no color was set, the color of the series with a
+     * quarter of its opacity is used.
+     * @return The color of the envelope.
+     */
+    public int getBandColor() {
+        if (mBandColorSet) {
+            return mBandColor;
+        }
+        return (getColor() & 0x00FFFFFF) | (((getColor() >>> 24) / 4) << 24);
+    }
+
+    public void setBandColor(int _bandColor) {
+        mBandColor    = _bandColor;
+        mBandColorSet = true;
+    }
+
+    @Override
+    protected void copySharedArrays() {
+        super.copySharedArrays();
+        mLower = mLower.clone();
+        mUpper = mUpper.clone();
+    }
+
+    private void checkBucket(int _index) {
+        if (_index < 0 || _index >= getPointCount()) {
+            throw new IndexOutOfBoundsException("Index: " + _index + ", Size: " + getPointCount());
+        }
+    }
+
+    private static final int DEF_CAPACITY = 16;
+
+    private float[]                mLower;
+    private float[]                mUpper;
+
+    /**
+     * Answer the range queries of the envelope for the y-scale.
+     */
+    private final RangeMinMaxIndex mLowerIndex = new RangeMinMaxIndex();
+    private final RangeMinMaxIndex mUpperIndex = new RangeMinMaxIndex();
+
+    private int                    mBandColor;
+    private boolean                mBandColorSet = false;
+}
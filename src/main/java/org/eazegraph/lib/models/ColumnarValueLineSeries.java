@@ -0,0 +1,312 @@
+/**
+ *
+ *   Copyright (C) 2014 Paul Cech
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.eazegraph.lib.models;
+
+import org.eazegraph.lib.communication.ILegendLabelProvider;
+import org.eazegraph.lib.utils.RangeMinMaxIndex;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A {@link org.eazegraph.lib.models.ValueLineSeries} which stores its values and calculated
+ * coordinates in primitive arrays instead of {@link org.eazegraph.lib.models.ValueLinePoint} objects.
+ * This is meant for series with a large amount of points. Legend labels are not stored, they are
+ * requested from an {@link org.eazegraph.lib.communication.ILegendLabelProvider} when they are
+ * displayed.
+ *
+ * The {@link org.eazegraph.lib.charts.ValueLineChart} never creates point objects for this series.
+ * {@link #getSeries()} is only available for compatibility and creates a new point on every access.
+ */
+public class ColumnarValueLineSeries extends ValueLineSeries {
+
+    public ColumnarValueLineSeries() {
+        this(DEF_CAPACITY);
+    }
+
+    public ColumnarValueLineSeries(int _initialCapacity) {
+        mValues  = new float[Math.max(_initialCapacity, 1)];
+        mScreenX = new float[0];
+        mScreenY = new float[0];
+        mView    = new PointView();
+    }
+
+    /**
+     * Creates a series which uses a copy of the given values.
+     * @param _values The values of the series.
+     * @param _count  Amount of valid values in the array.
+     */
+    public ColumnarValueLineSeries(float[] _values, int _count) {
+        this(_count);
+        setValues(_values, _count);
+    }
+
+    /**
+     * Appends a value to the series.
+     * @param _value The value which should be appended.
+     */
+    public void addValue(float _value) {
+        ensureWritable(mCount);
+        if (mCount == mValues.length) {
+            mValues = Arrays.copyOf(mValues, mCount * 2);
+        }
+        mValues[mCount++] = _value;
+        mRangeIndex.update(mValues, mCount, mCount - 1);
+    }
+
+    /**
+     * Replaces the values of the series with a copy of the given values.
+     * @param _values The new values.
+     * @param _count  Amount of valid values in the array.
+     */
+    public void setValues(float[] _values, int _count) {
+        ensureWritable(0);
+        if (mValues.length < _count) {
+            mValues = new float[_count];
+        }
+        System.arraycopy(_values, 0, mValues, 0, _count);
+        mCount = _count;
+        mRangeIndex.rebuild(mValues, mCount);
+    }
+
+    /**
+     * Changes the value at the given index.
+     * @param _index Index of the value.
+     * @param _value The new value.
+     */
+    public void setValueAt(int _index, float _value) {
+        checkIndex(_index);
+        ensureWritable(_index);
+        mValues[_index] = _value;
+        mRangeIndex.update(mValues, mCount, _index);
+    }
+
+    /**
+     * Removes all values. The allocated arrays are kept and will be reused.
+     */
+    public void clear() {
+        mCount = 0;
+        mRangeIndex.clear();
+    }
+
+    /**
+     * Returns the backing array of the values. Only the first getPointCount() values are valid.
+     * The array must not be modified.
+     * @return The values.
+     */
+    public float[] getValues() {
+        return mValues;
+    }
+
+    /**
+     * Shares the current values with a layout snapshot of the chart, which reads the backing arrays
+     * on another thread. Shared values are copied before they are changed the next time, so
+     * appending values never copies the series. This is called by the chart.
+     * @return Amount of shared values.
+     */
+    public int shareValues() {
+        mSharedCount = mCount;
+        return mCount;
+    }
+
+    public ILegendLabelProvider getLegendLabelProvider() {
+        return mLegendLabelProvider;
+    }
+
+    /**
+     * Sets the provider which creates the legend labels. If no provider is set, the value is used
+     * as label.
+     * @param _legendLabelProvider The legend label provider.
+     */
+    public void setLegendLabelProvider(ILegendLabelProvider _legendLabelProvider) {
+        mLegendLabelProvider = _legendLabelProvider;
+    }
+
+    @Override
+    public int getPointCount() {
+        return mCount;
+    }
+
+    @Override
+    public float getValueAt(int _index) {
+        checkIndex(_index);
+        return mValues[_index];
+    }
+
+    /**
+     * Returns the maximum value of a range of points in O(log n).
+     */
+    @Override
+    public float getMaxValue(int _from, int _to) {
+        return mRangeIndex.getMax(mValues, _from, _to);
+    }
+
+    /**
+     * Returns the minimum value of a range of points in O(log n).
+     */
+    @Override
+    public float getMinValue(int _from, int _to) {
+        return mRangeIndex.getMin(mValues, _from, _to);
+    }
+
+    @Override
+    public String getLegendLabelAt(int _index) {
+        checkIndex(_index);
+        if (mLegendLabelProvider != null) {
+            return mLegendLabelProvider.getLegendLabel(_index, mValues[_index]);
+        }
+        return "" + mValues[_index];
+    }
+
+    @Override
+    public float getScreenX(int _index) {
+        return mScreenX[_index];
+    }
+
+    @Override
+    public float getScreenY(int _index) {
+        return mScreenY[_index];
+    }
+
+    @Override
+    public void setScreenCoordinates(int _index, float _x, float _y) {
+        if (_index >= mScreenX.length) {
+            // grow to the current amount of values at once, as the chart sets all coordinates in a row
+            int size = Math.max(mCount, _index + 1);
+            mScreenX = Arrays.copyOf(mScreenX, size);
+            mScreenY = Arrays.copyOf(mScreenY, size);
+        }
+        mScreenX[_index] = _x;
+        mScreenY[_index] = _y;
+    }
+
+    @Override
+    public void setScreenCoordinates(int _first, float[] _x, float[] _y, int _offset, int _count) {
+        if (_first + _count > mScreenX.length) {
+            int size = Math.max(mCount, _first + _count);
+            mScreenX = Arrays.copyOf(mScreenX, size);
+            mScreenY = Arrays.copyOf(mScreenY, size);
+        }
+        System.arraycopy(_x, _offset, mScreenX, _first, _count);
+        System.arraycopy(_y, _offset, mScreenY, _first, _count);
+    }
+
+    /**
+     * Appends the value of the given point. The point itself and its legend label are not stored.
+     * @param _valueLinePoint The point which should be appended.
+     */
+    @Override
+    public void addPoint(ValueLinePoint _valueLinePoint) {
+        addValue(_valueLinePoint.getValue());
+    }
+
+    /**
+     * Returns a read-only view of the series. Every access creates a new point, so this should not
+     * be used for large series.
+     * @return The points of the series.
+     */
+    @Override
+    public List<ValueLinePoint> getSeries() {
+        return mView;
+    }
+
+    /**
+     * Replaces the values of the series with the values of the given points.
+     * @param _series The new points.
+     */
+    @Override
+    public void setSeries(List<ValueLinePoint> _series) {
+        clear();
+        for (ValueLinePoint point : _series) {
+            addPoint(point);
+        }
+    }
+
+    /**
+     * Copies the backing arrays, if the value at the given index is shared with a layout snapshot.
+     * This has to be called before a value is changed.
+     * @param _index Index of the value which will be changed.
+     */
+    protected void ensureWritable(int _index) {
+        if (_index < mSharedCount) {
+            copySharedArrays();
+            mSharedCount = 0;
+        }
+    }
+
+    /**
+     * Replaces the backing arrays with copies, because the current arrays are read by a layout
+     * snapshot. Subclasses with own arrays have to copy them as well.
+     */
+    protected void copySharedArrays() {
+        mValues = mValues.clone();
+    }
+
+    private void checkIndex(int _index) {
+        if (_index < 0 || _index >= mCount) {
+            throw new IndexOutOfBoundsException("Index: " + _index + ", Size: " + mCount);
+        }
+    }
+
+    /**
+     * Read-only list, which creates the points on access.
+     */
+    private class PointView extends AbstractList<ValueLinePoint> implements RandomAccess {
+
+        @Override
+        public ValueLinePoint get(int _index) {
+            ValueLinePoint point = new ValueLinePoint(getLegendLabelAt(_index), mValues[_index]);
+            if (_index < mScreenX.length) {
+                point.setCoordinates(new Point2D(mScreenX[_index], mScreenY[_index]));
+            }
+            return point;
+        }
+
+        @Override
+        public int size() {
+            return mCount;
+        }
+    }
+
+    private static final int DEF_CAPACITY = 16;
+
+    private float[]              mValues;
+    private int                  mCount = 0;
+
+    /**
+     * Amount of values which are shared with a layout snapshot of the chart.
+     */
+    private int                  mSharedCount = 0;
+
+    /**
+     * The coordinates for the chart. These are calculated dynamically.
+     */
+    private float[]              mScreenX;
+    private float[]              mScreenY;
+
+    private ILegendLabelProvider mLegendLabelProvider = null;
+
+    /**
+     * Answers minimum and maximum queries for the visible range of the chart.
+     */
+    private final RangeMinMaxIndex mRangeIndex = new RangeMinMaxIndex();
+
+    private final List<ValueLinePoint> mView;
+}
@@ -0,0 +1,318 @@
+/**
+ *
+ *   Copyright (C) 2014 Paul Cech
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.eazegraph.lib.models;
+
+import org.eazegraph.lib.utils.RangeMinMaxIndex;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A {@link org.eazegraph.lib.models.ValueLineSeries} with a fixed capacity, which is meant for live
+ * data. When the capacity is reached, every appended value evicts the oldest one. The points are
+ * allocated once and recycled afterwards, so appending a value never reallocates the backing storage.
+ *
+ * Points should only be changed through the append methods, because the
+ * {@link org.eazegraph.lib.charts.ValueLineChart} only recalculates the appended points while the
+ * series is scrolling.
+ */
+public class RingBufferValueLineSeries extends ValueLineSeries {
+
+    public RingBufferValueLineSeries(int _capacity) {
+        if (_capacity < 2) {
+            throw new IllegalArgumentException("The capacity has to be at least 2");
+        }
+        mBuffer      = new ValueLinePoint[_capacity];
+        mView        = new RingView();
+        mMaxQueue    = new long[_capacity];
+        mMinQueue    = new long[_capacity];
+        mSlotValues  = new float[_capacity];
+        mSlotIndex   = new RangeMinMaxIndex();
+        clearSlots();
+    }
+
+    /**
+     * Appends a new value and evicts the oldest one, if the capacity is reached. The value is used as
+     * legend label, like in {@link ValueLinePoint#ValueLinePoint(float)}.
+     * @param _value The value which should be appended.
+     */
+    public void append(float _value) {
+        append("" + _value, _value);
+    }
+
+    /**
+     * Appends a new value and evicts the oldest one, if the capacity is reached. A NaN value is
+     * drawn as a gap.
+     * @param _legendLabel The legend label of the value.
+     * @param _value       The value which should be appended.
+     */
+    public void append(String _legendLabel, float _value) {
+        long sequence = mEvictedCount + mSize;
+
+        if (mSize == mBuffer.length) {
+            // the oldest point is overwritten
+            evictFromQueues(mEvictedCount);
+            mEvictedCount++;
+        } else {
+            mSize++;
+        }
+
+        int            slot  = (int) (sequence % mBuffer.length);
+        ValueLinePoint point = mBuffer[slot];
+        if (point == null) {
+            mBuffer[slot] = new ValueLinePoint(_legendLabel, _value);
+        } else {
+            point.setLegendLabel(_legendLabel);
+            point.setValue(_value);
+        }
+
+        mSlotValues[slot] = _value;
+        mSlotIndex.update(mSlotValues, mSlotValues.length, slot);
+
+        // gaps are never a candidate for the maximum or minimum
+        if (Float.isNaN(_value)) {
+            return;
+        }
+
+        // remove all candidates which can't become the maximum or minimum anymore
+        while (mMaxQueueSize > 0 && getValue(mMaxQueue[queueIndex(mMaxQueueHead, mMaxQueueSize - 1)]) <= _value) {
+            mMaxQueueSize--;
+        }
+        mMaxQueue[queueIndex(mMaxQueueHead, mMaxQueueSize++)] = sequence;
+
+        while (mMinQueueSize > 0 && getValue(mMinQueue[queueIndex(mMinQueueHead, mMinQueueSize - 1)]) >= _value) {
+            mMinQueueSize--;
+        }
+        mMinQueue[queueIndex(mMinQueueHead, mMinQueueSize++)] = sequence;
+    }
+
+    /**
+     * Returns the maximum value of all points in amortized O(1).
+     * @return The maximum value or negative infinity if the series contains no value.
+     */
+    public float getMaxValue() {
+        return mMaxQueueSize > 0 ? getValue(mMaxQueue[mMaxQueueHead]) : Float.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Returns the minimum value of all points in amortized O(1).
+     * @return The minimum value or positive infinity if the series contains no value.
+     */
+    public float getMinValue() {
+        return mMinQueueSize > 0 ? getValue(mMinQueue[mMinQueueHead]) : Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the maximum value of a range of points. The maximum of all points is answered in
+     * O(1), other ranges in O(log n) from the index over the slots of the ring buffer.
+     */
+    @Override
+    public float getMaxValue(int _from, int _to) {
+        if (_from == 0 && _to == mSize - 1) {
+            return getMaxValue();
+        }
+        return querySlots(_from, _to, false);
+    }
+
+    /**
+     * Returns the minimum value of a range of points. The minimum of all points is answered in
+     * O(1), other ranges in O(log n) from the index over the slots of the ring buffer.
+     */
+    @Override
+    public float getMinValue(int _from, int _to) {
+        if (_from == 0 && _to == mSize - 1) {
+            return getMinValue();
+        }
+        return querySlots(_from, _to, true);
+    }
+
+    /**
+     * Appends the value and the legend label of the given point. The point itself is not stored.
+     * @param _valueLinePoint The point which should be appended.
+     */
+    @Override
+    public void addPoint(ValueLinePoint _valueLinePoint) {
+        append(_valueLinePoint.getLegendLabel(), _valueLinePoint.getValue());
+    }
+
+    /**
+     * Returns a read-only view of the points, starting with the oldest point.
+     * @return The points of the series.
+     */
+    @Override
+    public List<ValueLinePoint> getSeries() {
+        return mView;
+    }
+
+    /**
+     * Replaces the content of the series with the last points of the given list.
+     * @param _series The new points.
+     */
+    @Override
+    public void setSeries(List<ValueLinePoint> _series) {
+        clear();
+        for (ValueLinePoint point : _series) {
+            addPoint(point);
+        }
+    }
+
+    /**
+     * Removes all points. The allocated points are kept and will be reused.
+     */
+    public void clear() {
+        // the cleared points are handled as evicted, so that the sequence numbers stay valid
+        mEvictedCount += mSize;
+        mSize          = 0;
+        mMaxQueueSize  = 0;
+        mMinQueueSize  = 0;
+        clearSlots();
+    }
+
+    public int getCapacity() {
+        return mBuffer.length;
+    }
+
+    public boolean isFull() {
+        return mSize == mBuffer.length;
+    }
+
+    /**
+     * Returns the amount of points which were evicted since the series was created.
+     * @return Amount of evicted points.
+     */
+    public long getEvictedCount() {
+        return mEvictedCount;
+    }
+
+    /**
+     * Removes the given sequence number from the front of the queues, if it is the current
+     * maximum or minimum.
+     * @param _sequence Sequence number of the evicted point.
+     */
+    private void evictFromQueues(long _sequence) {
+        if (mMaxQueueSize > 0 && mMaxQueue[mMaxQueueHead] == _sequence) {
+            mMaxQueueHead = queueIndex(mMaxQueueHead, 1);
+            mMaxQueueSize--;
+        }
+        if (mMinQueueSize > 0 && mMinQueue[mMinQueueHead] == _sequence) {
+            mMinQueueHead = queueIndex(mMinQueueHead, 1);
+            mMinQueueSize--;
+        }
+    }
+
+    /**
+     * Answers a range query from the index over the slots. A range which wraps around the end of
+     * the ring buffer is queried in two parts.
+     * @param _from Index of the first point.
+     * @param _to   Index of the last point (inclusive).
+     * @param _min  True for the minimum, false for the maximum.
+     * @return The extreme or infinity if the range holds no value.
+     */
+    private float querySlots(int _from, int _to, boolean _min) {
+        _from = Math.max(_from, 0);
+        _to   = Math.min(_to, mSize - 1);
+        if (_from > _to) {
+            return _min ? Float.POSITIVE_INFINITY : Float.NEGATIVE_INFINITY;
+        }
+
+        int capacity = mSlotValues.length;
+        int first    = (int) ((mEvictedCount + _from) % capacity);
+        int last     = (int) ((mEvictedCount + _to) % capacity);
+
+        if (first <= last) {
+            return _min ? mSlotIndex.getMin(mSlotValues, first, last) : mSlotIndex.getMax(mSlotValues, first, last);
+        }
+        if (_min) {
+            return Math.min(mSlotIndex.getMin(mSlotValues, first, capacity - 1), mSlotIndex.getMin(mSlotValues, 0, last));
+        }
+        return Math.max(mSlotIndex.getMax(mSlotValues, first, capacity - 1), mSlotIndex.getMax(mSlotValues, 0, last));
+    }
+
+    /**
+     * Marks all slots as empty. Empty slots hold NaN, which is ignored by the index.
+     */
+    private void clearSlots() {
+        Arrays.fill(mSlotValues, Float.NaN);
+        mSlotIndex.rebuild(mSlotValues, mSlotValues.length);
+    }
+
+    private int queueIndex(int _head, int _offset) {
+        return (_head + _offset) % mBuffer.length;
+    }
+
+    private float getValue(long _sequence) {
+        return mBuffer[(int) (_sequence % mBuffer.length)].getValue();
+    }
+
+    /**
+     * Read-only list, which maps the logical index to the position in the ring buffer.
+     */
+    private class RingView extends AbstractList<ValueLinePoint> implements RandomAccess {
+
+        @Override
+        public ValueLinePoint get(int _index) {
+            if (_index < 0 || _index >= mSize) {
+                throw new IndexOutOfBoundsException("Index: " + _index + ", Size: " + mSize);
+            }
+            return mBuffer[(int) ((mEvictedCount + _index) % mBuffer.length)];
+        }
+
+        @Override
+        public int size() {
+            return mSize;
+        }
+    }
+
+    /**
+     * The recycled points.
+     */
+    private final ValueLinePoint[]  mBuffer;
+
+    private final List<ValueLinePoint> mView;
+
+    /**
+     * Amount of points which are currently stored.
+     */
+    private int                     mSize         = 0;
+
+    /**
+     * Amount of evicted points, which is also the sequence number of the oldest point. A point with
+     * the sequence number n is stored at the position n % capacity.
+     */
+    private long                    mEvictedCount = 0;
+
+    /**
+     * Monotonic queues of sequence numbers, which hold the candidates for the maximum and the
+     * minimum of the current window. The current maximum or minimum is at the head.
+     */
+    private final long[]            mMaxQueue;
+    private int                     mMaxQueueHead = 0;
+    private int                     mMaxQueueSize = 0;
+    private final long[]            mMinQueue;
+    private int                     mMinQueueHead = 0;
+    private int                     mMinQueueSize = 0;
+
+    /**
+     * The values by their position in the ring buffer and the index over them, which answers the
+     * range queries of the visible window.
+     */
+    private final float[]           mSlotValues;
+    private final RangeMinMaxIndex  mSlotIndex;
+}
@@ -19,7 +19,10 @@ package org.eazegraph.lib.models;
 
 import android.graphics.Path;
 
+import org.eazegraph.lib.utils.RangeMinMaxIndex;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -39,6 +42,7 @@ public class ValueLineSeries {
 
     public void addPoint(ValueLinePoint _valueLinePoint) {
         mSeries.add(_valueLinePoint);
+        appendToRangeIndex(_valueLinePoint.getValue());
     }
 
     public List<ValueLinePoint> getSeries() {
@@ -47,6 +51,156 @@ public class ValueLineSeries {
 
     public void setSeries(List<ValueLinePoint> _series) {
         mSeries = _series;
+        invalidateRangeIndex();
+    }
+
+    /**
+     * Returns the amount of points in the series.
+     * @return Amount of points.
+     */
+    public int getPointCount() {
+        return getSeries().size();
+    }
+
+    /**
+     * Returns the value of the point at the given index.
+     * @param _index Index of the point.
+     * @return The value of the point.
+     */
+    public float getValueAt(int _index) {
+        return getSeries().get(_index).getValue();
+    }
+
+    /**
+     * Returns the maximum value of a range of points in O(log n). Gaps (NaN values) are ignored.
+     * @param _from Index of the first point.
+     * @param _to   Index of the last point (inclusive).
+     * @return The maximum value or negative infinity if the range is empty.
+     */
+    public float getMaxValue(int _from, int _to) {
+        ensureRangeIndex();
+        return mPointRangeIndex.getMax(mIndexedValues, _from, _to);
+    }
+
+    /**
+     * Returns the minimum value of a range of points in O(log n). Gaps (NaN values) are ignored.
+     * @param _from Index of the first point.
+     * @param _to   Index of the last point (inclusive).
+     * @return The minimum value or positive infinity if the range is empty.
+     */
+    public float getMinValue(int _from, int _to) {
+        ensureRangeIndex();
+        return mPointRangeIndex.getMin(mIndexedValues, _from, _to);
+    }
+
+    /**
+     * Marks the values as changed, so that the index of the range queries is built again with the
+     * next query. Points can be changed directly through {@link ValueLinePoint#setValue(float)} or
+     * the list of {@link #getSeries()}, which is why the chart calls this with every update. Points
+     * which are appended with {@link #addPoint(ValueLinePoint)} are added to the index
+     * incrementally.
+     */
+    public void invalidateRangeIndex() {
+        mRangeIndexValid = false;
+    }
+
+    /**
+     * Builds the index of the range queries from the values of the points, if it isn't valid.
+     */
+    private void ensureRangeIndex() {
+        int count = getPointCount();
+        if (mRangeIndexValid && mIndexedCount == count) {
+            return;
+        }
+
+        if (mIndexedValues.length < count) {
+            mIndexedValues = new float[count];
+        }
+        for (int i = 0; i < count; i++) {
+            mIndexedValues[i] = getValueAt(i);
+        }
+
+        mIndexedCount    = count;
+        mPointRangeIndex.rebuild(mIndexedValues, count);
+        mRangeIndexValid = true;
+    }
+
+    /**
+     * Adds an appended value to the index of the range queries. The index is only extended, if it
+     * is valid, otherwise it is built with the next query anyway.
+     * @param _value The appended value.
+     */
+    private void appendToRangeIndex(float _value) {
+        if (!mRangeIndexValid || mIndexedCount != getPointCount() - 1) {
+            mRangeIndexValid = false;
+            return;
+        }
+
+        if (mIndexedCount == mIndexedValues.length) {
+            mIndexedValues = Arrays.copyOf(mIndexedValues, Math.max(16, mIndexedCount * 2));
+        }
+        mIndexedValues[mIndexedCount++] = _value;
+        mPointRangeIndex.update(mIndexedValues, mIndexedCount, mIndexedCount - 1);
+    }
+
+    /**
+     * Returns the legend label of the point at the given index.
+     * @param _index Index of the point.
+     * @return The legend label of the point.
+     */
+    public String getLegendLabelAt(int _index) {
+        return getSeries().get(_index).getLegendLabel();
+    }
+
+    /**
+     * Returns the calculated x-coordinate of the point at the given index.
+     * @param _index Index of the point.
+     * @return The x-coordinate of the point.
+     */
+    public float getScreenX(int _index) {
+        return getSeries().get(_index).getCoordinates().getX();
+    }
+
+    /**
+     * Returns the calculated y-coordinate of the point at the given index.
+     * @param _index Index of the point.
+     * @return The y-coordinate of the point.
+     */
+    public float getScreenY(int _index) {
+        return getSeries().get(_index).getCoordinates().getY();
+    }
+
+    /**
+     * Sets the calculated coordinates of the point at the given index. This is called by the chart.
+     * @param _index Index of the point.
+     * @param _x     The x-coordinate of the point.
+     * @param _y     The y-coordinate of the point.
+     */
+    public void setScreenCoordinates(int _index, float _x, float _y) {
+        ValueLinePoint point       = getSeries().get(_index);
+        Point2D        coordinates = point.getCoordinates();
+
+        // reuse the existing object to avoid allocations on every layout pass
+        if (coordinates == null) {
+            point.setCoordinates(new Point2D(_x, _y));
+        } else {
+            coordinates.setX(_x);
+            coordinates.setY(_y);
+        }
+    }
+
+    /**
+     * Sets the calculated coordinates of a range of points at once. This is called by the chart.
+     * @param _first  Index of the first point.
+     * @param _x      The x-coordinates of the points.
+     * @param _y      The y-coordinates of the points.
+     * @param _offset Position of the first point in the arrays.
+     * @param _count  Amount of points.
+     */
+    public void setScreenCoordinates(int _first, float[] _x, float[] _y, int _offset, int _count) {
+        for (int i = 0; i < _count; i++) {
+            setScreenCoordinates(_first + i, _x[_offset + i], _y[_offset + i]);
+        }
     }
 
     public int getColor() {
@@ -65,6 +219,19 @@ public class ValueLineSeries {
         mPath = _path;
     }
 
+    public float[] getLines() {
+        return mLines;
+    }
+
+    public int getLineCount() {
+        return mLineCount;
+    }
+
+    public void setLines(float[] _lines, int _lineCount) {
+        mLines = _lines;
+        mLineCount = _lineCount;
+    }
+
     public float getWidthOffset() {
         return mWidthOffset;
     }
@@ -73,6 +240,35 @@ public class ValueLineSeries {
         mWidthOffset = _widthOffset;
     }
 
+    public float getScrollOffset() {
+        return mScrollOffset;
+    }
+
+    public void setScrollOffset(float _scrollOffset) {
+        mScrollOffset = _scrollOffset;
+    }
+
+    /**
+     * Returns the index of the first point which coordinates were calculated in the last layout pass.
+     * @return Index of the first visible point.
+     */
+    public int getFirstVisibleIndex() {
+        return mFirstVisibleIndex;
+    }
+
+    /**
+     * Returns the index of the last point which coordinates were calculated in the last layout pass.
+     * @return Index of the last visible point.
+     */
+    public int getLastVisibleIndex() {
+        return mLastVisibleIndex;
+    }
+
+    public void setVisibleRange(int _firstVisibleIndex, int _lastVisibleIndex) {
+        mFirstVisibleIndex = _firstVisibleIndex;
+        mLastVisibleIndex  = _lastVisibleIndex;
+    }
+
     /**
      * The list of points, which will be concatenated as a Path.
      */
@@ -83,6 +279,26 @@ public class ValueLineSeries {
      */
     private Path                    mPath;
 
+    /**
+     * Copy of the values of the points, over which the range index is built. It is only allocated
+     * with the first range query.
+     */
+    private float[]                 mIndexedValues   = new float[0];
+    private int                     mIndexedCount    = 0;
+    private boolean                 mRangeIndexValid = false;
+    private final RangeMinMaxIndex  mPointRangeIndex = new RangeMinMaxIndex();
+
+    /**
+     * Line segments in the format of Canvas.drawLines(). If line segments are available, they are
+     * drawn instead of the path. This is calculated dynamically.
+     */
+    private float[]                 mLines;
+
+    /**
+     * Amount of valid values in mLines.
+     */
+    private int                     mLineCount;
+
     /**
      * The color of the path.
      */
@@ -92,4 +308,17 @@ public class ValueLineSeries {
      * Indicates the offset between each point in the series. This is calculated dynamically.
      */
     private float                   mWidthOffset;
+
+    /**
+     * Indicates how far the coordinates of the points and the path have to be moved to the left to
+     * get the position on the screen. This is calculated dynamically.
+     */
+    private float                   mScrollOffset;
+
+    /**
+     * The range of points which are inside the viewport of the chart. Only these points have valid
+     * coordinates. This is calculated dynamically.
+     */
+    private int                     mFirstVisibleIndex;
+    private int                     mLastVisibleIndex;
 }
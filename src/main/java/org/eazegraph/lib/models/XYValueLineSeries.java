@@ -0,0 +1,165 @@
+/**
+ *
+ *   Copyright (C) 2014 Paul Cech
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.eazegraph.lib.models;
+
+import org.eazegraph.lib.utils.Utils;
+
+import java.util.Arrays;
+
+/**
+ * A {@link org.eazegraph.lib.models.ColumnarValueLineSeries} whose points carry an explicit
+ * x-value, for example a timestamp. The {@link org.eazegraph.lib.charts.ValueLineChart} places the
+ * points with a linear transform of their x-values instead of a uniform distance, so irregularly
+ * sampled data doesn't have to be resampled.
+ *
+ * The x-values have to be in ascending order. Timestamps in milliseconds are represented exactly
+ * as double values.
+ */
+public class XYValueLineSeries extends ColumnarValueLineSeries {
+
+    public XYValueLineSeries() {
+        this(DEF_CAPACITY);
+    }
+
+    public XYValueLineSeries(int _initialCapacity) {
+        super(_initialCapacity);
+        mX = new double[Math.max(_initialCapacity, 1)];
+    }
+
+    /**
+     * Creates a series which uses a copy of the given values.
+     * @param _x      The x-values of the points in ascending order.
+     * @param _values The values of the points.
+     * @param _count  Amount of valid points in the arrays.
+     */
+    public XYValueLineSeries(double[] _x, float[] _values, int _count) {
+        this(_count);
+        setValues(_x, _values, _count);
+    }
+
+    /**
+     * Appends a point to the series.
+     * @param _x     The x-value of the point, which must not be smaller than the last x-value.
+     * @param _value The value of the point.
+     */
+    public void addValue(double _x, float _value) {
+        int count = getPointCount();
+        if (count > 0 && _x < mX[count - 1]) {
+            throw new IllegalArgumentException("The x-values have to be in ascending order");
+        }
+
+        ensureWritable(count);
+        if (count == mX.length) {
+            mX = Arrays.copyOf(mX, count * 2);
+        }
+        mX[count] = _x;
+        super.addValue(_value);
+    }
+
+    /**
+     * Replaces the points of the series with a copy of the given values.
+     * @param _x      The x-values of the points in ascending order.
+     * @param _values The values of the points.
+     * @param _count  Amount of valid points in the arrays.
+     */
+    public void setValues(double[] _x, float[] _values, int _count) {
+        for (int i = 1; i < _count; i++) {
+            if (_x[i] < _x[i - 1]) {
+                throw new IllegalArgumentException("The x-values have to be in ascending order");
+            }
+        }
+
+        ensureWritable(0);
+        if (mX.length < _count) {
+            mX = new double[_count];
+        }
+        System.arraycopy(_x, 0, mX, 0, _count);
+        super.setValues(_values, _count);
+    }
+
+    /**
+     * Appends a point whose x-value is the last x-value plus one, or 0 for the first point. So
+     * points which were added without an x-value are placed like the points of a
+     * {@link org.eazegraph.lib.models.ColumnarValueLineSeries}.
+     * @param _value The value which should be appended.
+     */
+    @Override
+    public void addValue(float _value) {
+        int count = getPointCount();
+        addValue(count > 0 ? mX[count - 1] + 1 : 0, _value);
+    }
+
+    /**
+     * Replaces the points of the series with a copy of the given values. The index of a point is
+     * used as its x-value.
+     * @param _values The values of the points.
+     * @param _count  Amount of valid points in the array.
+     */
+    @Override
+    public void setValues(float[] _values, int _count) {
+        ensureWritable(0);
+        if (mX.length < _count) {
+            mX = new double[_count];
+        }
+        for (int i = 0; i < _count; i++) {
+            mX[i] = i;
+        }
+        super.setValues(_values, _count);
+    }
+
+    /**
+     * Returns the x-value of a point.
+     * @param _index Index of the point.
+     * @return The x-value.
+     */
+    public double getX(int _index) {
+        if (_index < 0 || _index >= getPointCount()) {
+            throw new IndexOutOfBoundsException("Index: " + _index + ", Size: " + getPointCount());
+        }
+        return mX[_index];
+    }
+
+    /**
+     * Returns the backing array of the x-values. Only the first getPointCount() values are valid.
+     * The array must not be modified.
+     * @return The x-values.
+     */
+    public double[] getXValues() {
+        return mX;
+    }
+
+    /**
+     * Searches the last point whose x-value is smaller than or equal to the given x-value with a
+     * binary search.
+     * @param _x The x-value which should be searched.
+     * @return Index of the found point or -1 if all points are right of the given x-value.
+     */
+    public int findIndex(double _x) {
+        return Utils.findFloorIndex(mX, getPointCount(), _x);
+    }
+
+    @Override
+    protected void copySharedArrays() {
+        super.copySharedArrays();
+        mX = mX.clone();
+    }
+
+    private static final int DEF_CAPACITY = 16;
+
+    private double[] mX;
+}
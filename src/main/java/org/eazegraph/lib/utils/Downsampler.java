@@ -0,0 +1,323 @@
+/**
+ *
+ *   Copyright (C) 2014 Paul Cech
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.eazegraph.lib.utils;
+
+/**
+ * A helper class which consists of static methods to reduce the amount of points, which have to be
+ * drawn, without losing the visual characteristics of a series.
+ */
+public class Downsampler {
+
+    /**
+     * Selects the points which should be drawn with the Largest-Triangle-Three-Buckets algorithm.
+     * The first and the last point are always kept, the remaining points are divided into equally
+     * sized buckets and from every bucket the point which forms the largest triangle with the
+     * previously selected point and the average of the next bucket is chosen.
+     *
+     * Points with a NaN y-coordinate mark gaps. Every segment between two gaps is reduced on its
+     * own with a share of the threshold, which is proportional to its size, and one index of every
+     * gap is kept, so that the gaps stay visible.
+     *
+     * @param _X         x-coordinates of the points, sorted in ascending order.
+     * @param _Y         y-coordinates of the points.
+     * @param _Count     Amount of valid points in the arrays.
+     * @param _Threshold Maximum amount of points which should be selected (at least 3).
+     * @param _Indices   Array in which the indices of the selected points are stored. Has to be at
+     *                   least as big as _Count.
+     * @return The amount of selected indices.
+     */
+    public static int largestTriangleThreeBuckets(float[] _X, float[] _Y, int _Count, int _Threshold, int[] _Indices) {
+        if (_Threshold >= _Count || _Threshold < 3) {
+            for (int i = 0; i < _Count; i++) {
+                _Indices[i] = i;
+            }
+            return _Count;
+        }
+
+        int selected = 0;
+        int i        = 0;
+
+        while (i < _Count) {
+            if (Float.isNaN(_Y[i])) {
+                // a single index is enough to break the line
+                _Indices[selected++] = i;
+                while (i < _Count && Float.isNaN(_Y[i])) {
+                    i++;
+                }
+                continue;
+            }
+
+            int from = i;
+            while (i < _Count && !Float.isNaN(_Y[i])) {
+                i++;
+            }
+
+            int threshold = (int) ((long) _Threshold * (i - from) / _Count);
+            selected = largestTriangleThreeBuckets(_X, _Y, from, i, threshold, _Indices, selected);
+        }
+
+        return selected;
+    }
+
+    /**
+     * Applies the Largest-Triangle-Three-Buckets algorithm to a range of points without gaps.
+     * @param _From      Index of the first point of the range.
+     * @param _To        Index after the last point of the range.
+     * @param _Threshold Maximum amount of points which should be selected from the range.
+     * @param _Selected  Amount of indices which are already stored.
+     * @return The new amount of selected indices.
+     */
+    private static int largestTriangleThreeBuckets(float[] _X, float[] _Y, int _From, int _To, int _Threshold,
+                                                   int[] _Indices, int _Selected) {
+        int count = _To - _From;
+
+        if (_Threshold >= count || _Threshold < 3) {
+            for (int i = _From; i < _To; i++) {
+                _Indices[_Selected++] = i;
+            }
+            return _Selected;
+        }
+
+        // the first and last point are not part of a bucket
+        float bucketSize = (float) (count - 2) / (_Threshold - 2);
+        int   a          = _From;
+
+        _Indices[_Selected++] = a;
+
+        for (int bucket = 0; bucket < _Threshold - 2; bucket++) {
+
+            // calculate the average point of the next bucket
+            int nextStart = _From + (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd   = Math.min(_From + (int) ((bucket + 2) * bucketSize) + 1, _To);
+            if (nextStart >= nextEnd) {
+                nextStart = nextEnd - 1;
+            }
+
+            float avgX = 0;
+            float avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += _X[i];
+                avgY += _Y[i];
+            }
+            avgX /= (nextEnd - nextStart);
+            avgY /= (nextEnd - nextStart);
+
+            // find the point in the current bucket which forms the largest triangle
+            int start = _From + (int) (bucket * bucketSize) + 1;
+            int end   = _From + (int) ((bucket + 1) * bucketSize) + 1;
+
+            float ax      = _X[a];
+            float ay      = _Y[a];
+            float maxArea = -1;
+            int   maxIndex = start;
+
+            for (int i = start; i < end; i++) {
+                float area = Math.abs((ax - avgX) * (_Y[i] - ay) - (ax - _X[i]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxIndex = i;
+                }
+            }
+
+            _Indices[_Selected++] = maxIndex;
+            a = maxIndex;
+        }
+
+        _Indices[_Selected++] = _To - 1;
+        return _Selected;
+    }
+
+    /**
+     * Selects the points which should be drawn with the M4 aggregation. Every pixel column is
+     * reduced to its first, last, minimum and maximum point, which is enough to rasterize a line
+     * series exactly like the complete series. Points with a NaN y-coordinate mark gaps, a column
+     * ends at a gap and one index of every gap is kept.
+     *
+     * @param _X       x-coordinates of the points in px, sorted in ascending order.
+     * @param _Y       y-coordinates of the points.
+     * @param _Count   Amount of valid points in the arrays.
+     * @param _Indices Array in which the indices of the selected points are stored in ascending
+     *                 order. Has to be at least as big as _Count.
+     * @return The amount of selected indices.
+     */
+    public static int m4(float[] _X, float[] _Y, int _Count, int[] _Indices) {
+        int selected = 0;
+        int i        = 0;
+
+        while (i < _Count) {
+            if (Float.isNaN(_Y[i])) {
+                _Indices[selected++] = i;
+                while (i < _Count && Float.isNaN(_Y[i])) {
+                    i++;
+                }
+                continue;
+            }
+
+            int column = (int) _X[i];
+            int first  = i;
+            int min    = i;
+            int max    = i;
+
+            i++;
+            while (i < _Count && (int) _X[i] == column && !Float.isNaN(_Y[i])) {
+                if (_Y[i] < _Y[min]) {
+                    min = i;
+                }
+                if (_Y[i] > _Y[max]) {
+                    max = i;
+                }
+                i++;
+            }
+            int last = i - 1;
+
+            // keep the original order of the points
+            _Indices[selected++] = first;
+            selected = addIndex(_Indices, selected, Math.min(min, max));
+            selected = addIndex(_Indices, selected, Math.max(min, max));
+            selected = addIndex(_Indices, selected, last);
+        }
+
+        return selected;
+    }
+
+    /**
+     * Selects the points which should be drawn with the Douglas-Peucker algorithm. A point is only
+     * kept, if it is further away from the line between its kept neighbours than the tolerance, so
+     * the simplified polyline never deviates more than the tolerance from the original one. The
+     * first and the last point are always kept.
+     *
+     * Points with a NaN y-coordinate mark gaps. Every segment between two gaps is simplified on its
+     * own and one index of every gap is kept.
+     *
+     * @param _X         x-coordinates of the points in px.
+     * @param _Y         y-coordinates of the points in px.
+     * @param _Count     Amount of valid points in the arrays.
+     * @param _Tolerance Maximum distance in px between the simplified and the original polyline.
+     * @param _Indices   Array in which the indices of the selected points are stored in ascending
+     *                   order. Has to be at least as big as _Count. The unused part of the array
+     *                   is overwritten as well.
+     * @return The amount of selected indices.
+     */
+    public static int douglasPeucker(float[] _X, float[] _Y, int _Count, float _Tolerance, int[] _Indices) {
+        if (_Tolerance <= 0 || _Count < 3) {
+            for (int i = 0; i < _Count; i++) {
+                _Indices[i] = i;
+            }
+            return _Count;
+        }
+
+        float tolerance = _Tolerance * _Tolerance;
+        int   selected  = 0;
+        int   i         = 0;
+
+        while (i < _Count) {
+            if (Float.isNaN(_Y[i])) {
+                _Indices[selected++] = i;
+                while (i < _Count && Float.isNaN(_Y[i])) {
+                    i++;
+                }
+                continue;
+            }
+
+            int from = i;
+            while (i < _Count && !Float.isNaN(_Y[i])) {
+                i++;
+            }
+
+            selected = douglasPeucker(_X, _Y, from, i, tolerance, _Indices, selected);
+        }
+
+        return selected;
+    }
+
+    /**
+     * Applies the Douglas-Peucker algorithm to a range of points without gaps. The ranges are
+     * processed from left to right, so the indices are selected in ascending order. The pending
+     * range ends are stored at the end of the index array, which is never reached by the selected
+     * indices, because both together never hold more than _Count indices.
+     * @param _From      Index of the first point of the range.
+     * @param _To        Index after the last point of the range.
+     * @param _Tolerance Squared tolerance in px.
+     * @param _Selected  Amount of indices which are already stored.
+     * @return The new amount of selected indices.
+     */
+    private static int douglasPeucker(float[] _X, float[] _Y, int _From, int _To, float _Tolerance,
+                                      int[] _Indices, int _Selected) {
+        _Indices[_Selected++] = _From;
+
+        if (_To - _From < 2) {
+            return _Selected;
+        }
+
+        int bottom = _Indices.length;
+        int top    = bottom;
+        int anchor = _From;
+
+        _Indices[--top] = _To - 1;
+
+        while (top < bottom) {
+            int   end      = _Indices[top];
+            float ax       = _X[anchor];
+            float ay       = _Y[anchor];
+            float dx       = _X[end] - ax;
+            float dy       = _Y[end] - ay;
+            float length   = dx * dx + dy * dy;
+            float maxDist  = _Tolerance;
+            int   maxIndex = -1;
+
+            // find the point with the largest squared distance to the line between anchor and end
+            for (int i = anchor + 1; i < end; i++) {
+                float px = _X[i] - ax;
+                float py = _Y[i] - ay;
+                float dist;
+                if (length == 0) {
+                    dist = px * px + py * py;
+                } else {
+                    float cross = dx * py - dy * px;
+                    dist = cross * cross / length;
+                }
+                if (dist > maxDist) {
+                    maxDist  = dist;
+                    maxIndex = i;
+                }
+            }
+
+            if (maxIndex >= 0) {
+                // the left part is processed first
+                _Indices[--top] = maxIndex;
+            } else {
+                _Indices[_Selected++] = end;
+                top++;
+                anchor = end;
+            }
+        }
+
+        return _Selected;
+    }
+
+    /**
+     * Appends an index, if it differs from the previously appended index.
+     * @return The new amount of indices.
+     */
+    private static int addIndex(int[] _Indices, int _Size, int _Index) {
+        if (_Indices[_Size - 1] != _Index) {
+            _Indices[_Size++] = _Index;
+        }
+        return _Size;
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ *
+ *   Copyright (C) 2014 Paul Cech
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.eazegraph.lib.utils;
+
+/**
+ * An index which answers minimum and maximum queries for any range of a float array in
+ * O(log n). NaN values are ignored, so they can be used to mark gaps. The values are grouped into
+ * blocks of a fixed size and a segment tree is built over the extremes of the blocks, so the index
+ * only needs a fraction of the memory of the values.
+ *
+ * The index doesn't store the values itself, the array has to be passed to every call. Changed or
+ * appended values have to be reported with {@link #update(float[], int, int)}.
+ */
+public class RangeMinMaxIndex {
+
+    public RangeMinMaxIndex() {
+        mLeafCount = 1;
+        mMin       = new float[2];
+        mMax       = new float[2];
+        clear();
+    }
+
+    /**
+     * Removes all values from the index.
+     */
+    public void clear() {
+        for (int i = 0; i < mMin.length; i++) {
+            mMin[i] = Float.POSITIVE_INFINITY;
+            mMax[i] = Float.NEGATIVE_INFINITY;
+        }
+        mCount = 0;
+    }
+
+    /**
+     * Builds the index for the given values.
+     * @param _Values The values.
+     * @param _Count  Amount of valid values in the array.
+     */
+    public void rebuild(float[] _Values, int _Count) {
+        int blockCount = (_Count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int leafCount  = 1;
+        while (leafCount < blockCount) {
+            leafCount <<= 1;
+        }
+
+        if (leafCount != mLeafCount) {
+            mLeafCount = leafCount;
+            mMin       = new float[2 * leafCount];
+            mMax       = new float[2 * leafCount];
+        }
+
+        clear();
+        mCount = _Count;
+
+        for (int block = 0; block < blockCount; block++) {
+            calculateBlock(_Values, block);
+        }
+        for (int node = mLeafCount - 1; node > 0; node--) {
+            mMin[node] = Math.min(mMin[2 * node], mMin[2 * node + 1]);
+            mMax[node] = Math.max(mMax[2 * node], mMax[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Updates the index after a single value was changed or appended.
+     * @param _Values The values.
+     * @param _Count  Amount of valid values in the array.
+     * @param _Index  Index of the changed or appended value.
+     */
+    public void update(float[] _Values, int _Count, int _Index) {
+        if (_Count > mLeafCount * BLOCK_SIZE) {
+            // the tree is rebuilt with the doubled amount of leaves
+            rebuild(_Values, _Count);
+            return;
+        }
+
+        mCount = _Count;
+        int node = calculateBlock(_Values, _Index / BLOCK_SIZE) / 2;
+
+        while (node > 0) {
+            mMin[node] = Math.min(mMin[2 * node], mMin[2 * node + 1]);
+            mMax[node] = Math.max(mMax[2 * node], mMax[2 * node + 1]);
+            node /= 2;
+        }
+    }
+
+    /**
+     * Returns the minimum of a range.
+     * @param _Values The values.
+     * @param _From   Index of the first value of the range. It is clamped to the valid values.
+     * @param _To     Index of the last value of the range (inclusive). It is clamped to the valid
+     *                values.
+     * @return The minimum or positive infinity if the range is empty.
+     */
+    public float getMin(float[] _Values, int _From, int _To) {
+        return query(_Values, _From, _To, true);
+    }
+
+    /**
+     * Returns the maximum of a range.
+     * @param _Values The values.
+     * @param _From   Index of the first value of the range. It is clamped to the valid values.
+     * @param _To     Index of the last value of the range (inclusive). It is clamped to the valid
+     *                values.
+     * @return The maximum or negative infinity if the range is empty.
+     */
+    public float getMax(float[] _Values, int _From, int _To) {
+        return query(_Values, _From, _To, false);
+    }
+
+    private float query(float[] _Values, int _From, int _To, boolean _Min) {
+        _From = Math.max(_From, 0);
+        _To   = Math.min(_To, mCount - 1);
+        float result = _Min ? Float.POSITIVE_INFINITY : Float.NEGATIVE_INFINITY;
+
+        if (_From > _To) {
+            return result;
+        }
+
+        int firstBlock = _From / BLOCK_SIZE;
+        int lastBlock  = _To / BLOCK_SIZE;
+
+        // the partially covered blocks at both ends are scanned
+        if (firstBlock == lastBlock) {
+            return scan(_Values, _From, _To, result, _Min);
+        }
+        result = scan(_Values, _From, (firstBlock + 1) * BLOCK_SIZE - 1, result, _Min);
+        result = scan(_Values, lastBlock * BLOCK_SIZE, _To, result, _Min);
+
+        // the completely covered blocks are taken from the tree
+        float[] tree = _Min ? mMin : mMax;
+        int     low  = firstBlock + 1 + mLeafCount;
+        int     high = lastBlock - 1 + mLeafCount + 1;
+
+        while (low < high) {
+            if ((low & 1) == 1) {
+                result = _Min ? Math.min(result, tree[low]) : Math.max(result, tree[low]);
+                low++;
+            }
+            if ((high & 1) == 1) {
+                high--;
+                result = _Min ? Math.min(result, tree[high]) : Math.max(result, tree[high]);
+            }
+            low  /= 2;
+            high /= 2;
+        }
+
+        return result;
+    }
+
+    private static float scan(float[] _Values, int _From, int _To, float _Result, boolean _Min) {
+        // comparisons with NaN are always false, so gaps are skipped
+        for (int i = _From; i <= _To; i++) {
+            float value = _Values[i];
+            if (_Min ? value < _Result : value > _Result) {
+                _Result = value;
+            }
+        }
+        return _Result;
+    }
+
+    /**
+     * Calculates the extremes of a block and stores them in its leaf.
+     * @return The position of the leaf in the tree.
+     */
+    private int calculateBlock(float[] _Values, int _Block) {
+        int   start = _Block * BLOCK_SIZE;
+        int   end   = Math.min(start + BLOCK_SIZE, mCount);
+        float min   = Float.POSITIVE_INFINITY;
+        float max   = Float.NEGATIVE_INFINITY;
+
+        for (int i = start; i < end; i++) {
+            float value = _Values[i];
+            if (value < min) {
+                min = value;
+            }
+            if (value > max) {
+                max = value;
+            }
+        }
+
+        int leaf = mLeafCount + _Block;
+        mMin[leaf] = min;
+        mMax[leaf] = max;
+        return leaf;
+    }
+
+    /**
+     * Amount of values which are combined in one leaf of the tree.
+     */
+    private static final int BLOCK_SIZE = 32;
+
+    private int     mCount;
+    private int     mLeafCount;
+
+    /**
+     * The tree is stored as an implicit binary heap. The leaves start at mLeafCount.
+     */
+    private float[] mMin;
+    private float[] mMax;
+}
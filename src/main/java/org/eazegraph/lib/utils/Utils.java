@@ -66,6 +66,49 @@ public class Utils {
         return l * sign;
     }
 
+    /**
+     * Searches the last value which is smaller than or equal to the given key with a binary search.
+     *
+     * @param _Values The values, sorted in ascending order.
+     * @param _Count  Amount of valid values in the array.
+     * @param _Key    The value which should be searched.
+     * @return The index of the found value or -1 if all values are greater than the key.
+     */
+    public static int findFloorIndex(double[] _Values, int _Count, double _Key) {
+        int low  = 0;
+        int high = _Count - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (_Values[mid] <= _Key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return high;
+    }
+
+    /**
+     * Calculates the tangent of an inner point of a monotone cubic curve with the Fritsch-Carlson
+     * method. The tangent is 0 at a local extreme, so the curve never overshoots the points.
+     *
+     * @param _LeftWidth  Width of the segment left of the point.
+     * @param _LeftSlope  Slope of the segment left of the point.
+     * @param _RightWidth Width of the segment right of the point.
+     * @param _RightSlope Slope of the segment right of the point.
+     * @return The weighted harmonic mean of the slopes or 0 at a local extreme.
+     */
+    public static float calculateMonotoneTangent(float _LeftWidth, float _LeftSlope, float _RightWidth, float _RightSlope) {
+        if (_LeftSlope * _RightSlope > 0) {
+            float w1 = 2 * _RightWidth + _LeftWidth;
+            float w2 = _RightWidth + 2 * _LeftWidth;
+            return (w1 + w2) / (w1 / _LeftSlope + w2 / _RightSlope);
+        }
+        return 0;
+    }
+
     /**
      * Calculates the legend positions and which legend title should be displayed or not.
      *
@@ -83,9 +126,14 @@ public class Utils {
         // if not the label will not be shown
         for (BaseModel model : _Models) {
             if (!model.isIgnore()) {
-                Rect textBounds = new Rect();
+                Rect textBounds = model.getTextBounds();
                 RectF legendBounds = model.getLegendBounds();
 
+                // the bounds of a previous pass are reused
+                if (textBounds == null) {
+                    textBounds = new Rect();
+                }
+
                 _Paint.getTextBounds(model.getLegendLabel(), 0, model.getLegendLabel().length(), textBounds);
                 model.setTextBounds(textBounds);
 
@@ -0,0 +1,225 @@
+/**
+ *
+ *   Copyright (C) 2014 Paul Cech
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.eazegraph.lib.models;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferValueLineSeriesTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooSmallCapacity() {
+        new RingBufferValueLineSeries(1);
+    }
+
+    @Test
+    public void emptySeriesHasNoExtremes() {
+        RingBufferValueLineSeries series = new RingBufferValueLineSeries(4);
+
+        assertEquals(Float.NEGATIVE_INFINITY, series.getMaxValue(), 0);
+        assertEquals(Float.POSITIVE_INFINITY, series.getMinValue(), 0);
+    }
+
+    @Test
+    public void evictsOldestValue() {
+        RingBufferValueLineSeries series = new RingBufferValueLineSeries(3);
+        series.append(1);
+        series.append(2);
+        series.append(3);
+        assertTrue(series.isFull());
+
+        series.append(4);
+
+        assertEquals(3, series.getSeries().size());
+        assertEquals(2, series.getSeries().get(0).getValue(), 0);
+        assertEquals(4, series.getSeries().get(2).getValue(), 0);
+        assertEquals(1, series.getEvictedCount());
+    }
+
+    @Test
+    public void extremesFollowEviction() {
+        RingBufferValueLineSeries series = new RingBufferValueLineSeries(3);
+        series.append(9);
+        series.append(1);
+        series.append(5);
+        assertEquals(9, series.getMaxValue(), 0);
+        assertEquals(1, series.getMinValue(), 0);
+
+        series.append(4);
+        assertEquals(5, series.getMaxValue(), 0);
+        assertEquals(1, series.getMinValue(), 0);
+
+        series.append(6);
+        assertEquals(6, series.getMaxValue(), 0);
+        assertEquals(4, series.getMinValue(), 0);
+    }
+
+    @Test
+    public void extremesMatchBruteForce() {
+        int capacity = 16;
+        RingBufferValueLineSeries series = new RingBufferValueLineSeries(capacity);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 1000; i++) {
+            // small value range, so equal values have to be handled as well
+            float value = random.nextInt(10) == 0 ? Float.NaN : random.nextInt(20);
+            series.append(value);
+
+            float max = Float.NEGATIVE_INFINITY;
+            float min = Float.POSITIVE_INFINITY;
+            for (ValueLinePoint point : series.getSeries()) {
+                if (!Float.isNaN(point.getValue())) {
+                    max = Math.max(max, point.getValue());
+                    min = Math.min(min, point.getValue());
+                }
+            }
+            assertEquals("max after " + i, max, series.getMaxValue(), 0);
+            assertEquals("min after " + i, min, series.getMinValue(), 0);
+        }
+    }
+
+    @Test
+    public void gapsAreNoExtremes() {
+        RingBufferValueLineSeries series = new RingBufferValueLineSeries(3);
+        series.append(Float.NaN);
+        assertEquals(Float.NEGATIVE_INFINITY, series.getMaxValue(), 0);
+        assertEquals(Float.POSITIVE_INFINITY, series.getMinValue(), 0);
+
+        series.append(2);
+        series.append(Float.NaN);
+        assertEquals(2, series.getMaxValue(), 0);
+        assertEquals(2, series.getMinValue(), 0);
+
+        series.append(Float.NaN);
+        series.append(Float.NaN);
+        assertEquals(Float.NEGATIVE_INFINITY, series.getMaxValue(), 0);
+    }
+
+    @Test
+    public void clearResetsExtremes() {
+        RingBufferValueLineSeries series = new RingBufferValueLineSeries(3);
+        series.append(7);
+        series.append(3);
+
+        series.clear();
+
+        assertEquals(0, series.getSeries().size());
+        assertFalse(series.isFull());
+        assertEquals(Float.NEGATIVE_INFINITY, series.getMaxValue(), 0);
+
+        series.append(1);
+        assertEquals(1, series.getMaxValue(), 0);
+        assertEquals(1, series.getMinValue(), 0);
+    }
+
+    @Test
+    public void recyclesPoints() {
+        RingBufferValueLineSeries series = new RingBufferValueLineSeries(2);
+        series.append(1);
+        series.append(2);
+        ValueLinePoint oldest = series.getSeries().get(0);
+
+        series.append(3);
+
+        assertTrue(oldest == series.getSeries().get(1));
+    }
+
+    @Test
+    public void labelsValues() {
+        RingBufferValueLineSeries series = new RingBufferValueLineSeries(2);
+        series.append(1.5f);
+        series.append("label", 2);
+
+        assertEquals(new ValueLinePoint(1.5f).getLegendLabel(), series.getSeries().get(0).getLegendLabel());
+        assertEquals("label", series.getSeries().get(1).getLegendLabel());
+        assertEquals("label", series.getLegendLabelAt(1));
+
+        // a recycled point must not keep the label of the evicted one
+        series.append(3);
+        series.append(4);
+        assertEquals("3.0", series.getSeries().get(0).getLegendLabel());
+        assertEquals("4.0", series.getLegendLabelAt(1));
+    }
+
+    @Test
+    public void pointsLegendCanMeasureEveryLabel() {
+        RingBufferValueLineSeries series = new RingBufferValueLineSeries(8);
+        for (int i = 0; i < 20; i++) {
+            series.append(i * 0.5f);
+        }
+
+        // the points legend uses the points themselves as legend models and measures their labels
+        // like Utils.calculateLegendInformation() does
+        List<ValueLinePoint> legend = series.getSeries().subList(1, series.getSeries().size() - 1);
+        for (BaseModel model : legend) {
+            assertNotNull(model.getLegendLabel());
+            assertTrue(model.getLegendLabel().length() > 0);
+        }
+    }
+
+    @Test
+    public void rangeExtremes() {
+        RingBufferValueLineSeries series = new RingBufferValueLineSeries(4);
+        series.append(1);
+        series.append(8);
+        series.append(3);
+        series.append(2);
+
+        assertEquals(8, series.getMaxValue(0, 3), 0);
+        assertEquals(3, series.getMaxValue(2, 3), 0);
+        assertEquals(2, series.getMinValue(2, 3), 0);
+    }
+
+    @Test
+    public void wrappedRangeExtremesMatchBruteForce() {
+        int capacity = 50;
+        RingBufferValueLineSeries series = new RingBufferValueLineSeries(capacity);
+        Random random = new Random(29);
+
+        for (int i = 0; i < 400; i++) {
+            if (i == 220) {
+                // the slots of the next values start in the middle of the buffer
+                series.clear();
+            }
+            series.append(random.nextInt(10) == 0 ? Float.NaN : random.nextFloat() * 100 - 50);
+
+            int size = series.getSeries().size();
+            int from = random.nextInt(size);
+            int to = from + random.nextInt(size - from);
+
+            float max = Float.NEGATIVE_INFINITY;
+            float min = Float.POSITIVE_INFINITY;
+            for (int j = from; j <= to; j++) {
+                float value = series.getSeries().get(j).getValue();
+                if (!Float.isNaN(value)) {
+                    max = Math.max(max, value);
+                    min = Math.min(min, value);
+                }
+            }
+            assertEquals("max of " + from + ".." + to, max, series.getMaxValue(from, to), 0);
+            assertEquals("min of " + from + ".." + to, min, series.getMinValue(from, to), 0);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ *
+ *   Copyright (C) 2014 Paul Cech
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.eazegraph.lib.models;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ValueLineSeriesTest {
+
+    @Test
+    public void emptyRangeHasNoExtremes() {
+        ValueLineSeries series = new ValueLineSeries();
+
+        assertEquals(Float.NEGATIVE_INFINITY, series.getMaxValue(0, 10), 0);
+        assertEquals(Float.POSITIVE_INFINITY, series.getMinValue(0, 10), 0);
+    }
+
+    @Test
+    public void rangeExtremesMatchBruteForce() {
+        Random random = new Random(31);
+        ValueLineSeries series = new ValueLineSeries();
+
+        // the points are appended after the index was built, so it is extended incrementally
+        for (int i = 0; i < 300; i++) {
+            series.addPoint(new ValueLinePoint(random.nextInt(10) == 0 ? Float.NaN : random.nextFloat() * 100));
+
+            int from = random.nextInt(i + 1);
+            int to = from + random.nextInt(i + 1 - from);
+            assertRange(series, from, to);
+        }
+    }
+
+    @Test
+    public void changedPointsNeedInvalidation() {
+        ValueLineSeries series = new ValueLineSeries();
+        for (int i = 0; i < 100; i++) {
+            series.addPoint(new ValueLinePoint(i));
+        }
+        assertEquals(99, series.getMaxValue(0, 99), 0);
+
+        series.getSeries().get(10).setValue(500);
+        series.invalidateRangeIndex();
+
+        assertEquals(500, series.getMaxValue(0, 99), 0);
+        assertEquals(99, series.getMaxValue(11, 99), 0);
+    }
+
+    @Test
+    public void replacedSeriesIsIndexed() {
+        ValueLineSeries series = new ValueLineSeries();
+        series.addPoint(new ValueLinePoint(1));
+        series.addPoint(new ValueLinePoint(2));
+        assertEquals(2, series.getMaxValue(0, 1), 0);
+
+        List<ValueLinePoint> points = new ArrayList<ValueLinePoint>();
+        points.add(new ValueLinePoint(-4));
+        points.add(new ValueLinePoint(8));
+        series.setSeries(points);
+
+        assertEquals(-4, series.getMinValue(0, 1), 0);
+        assertEquals(8, series.getMaxValue(0, 1), 0);
+    }
+
+    private static void assertRange(ValueLineSeries _Series, int _From, int _To) {
+        float max = Float.NEGATIVE_INFINITY;
+        float min = Float.POSITIVE_INFINITY;
+        for (int i = _From; i <= _To; i++) {
+            float value = _Series.getValueAt(i);
+            if (!Float.isNaN(value)) {
+                max = Math.max(max, value);
+                min = Math.min(min, value);
+            }
+        }
+        assertEquals("max of " + _From + ".." + _To, max, _Series.getMaxValue(_From, _To), 0);
+        assertEquals("min of " + _From + ".." + _To, min, _Series.getMinValue(_From, _To), 0);
+    }
+}
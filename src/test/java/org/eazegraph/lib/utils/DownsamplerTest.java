@@ -0,0 +1,422 @@
+/**
+ *
+ *   Copyright (C) 2014 Paul Cech
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.eazegraph.lib.utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DownsamplerTest {
+
+    //##############################################################################################
+    // Largest-Triangle-Three-Buckets
+    //##############################################################################################
+
+    @Test
+    public void lttbKeepsAllPointsBelowThreshold() {
+        float[] x = createX(5);
+        float[] y = { 1, 3, 2, 5, 4 };
+        int[] indices = new int[5];
+
+        int selected = Downsampler.largestTriangleThreeBuckets(x, y, 5, 10, indices);
+
+        assertEquals(5, selected);
+        assertIdentity(indices, selected);
+    }
+
+    @Test
+    public void lttbKeepsAllPointsForTooSmallThreshold() {
+        float[] x = createX(10);
+        float[] y = createWave(10);
+        int[] indices = new int[10];
+
+        int selected = Downsampler.largestTriangleThreeBuckets(x, y, 10, 2, indices);
+
+        assertEquals(10, selected);
+        assertIdentity(indices, selected);
+    }
+
+    @Test
+    public void lttbRespectsThreshold() {
+        int count = 1000;
+        float[] x = createX(count);
+        float[] y = createWave(count);
+        int[] indices = new int[count];
+
+        int selected = Downsampler.largestTriangleThreeBuckets(x, y, count, 50, indices);
+
+        assertEquals(50, selected);
+        assertEquals(0, indices[0]);
+        assertEquals(count - 1, indices[selected - 1]);
+        assertAscending(indices, selected);
+    }
+
+    @Test
+    public void lttbIgnoresValuesBehindCount() {
+        float[] x = createX(200);
+        float[] y = createWave(200);
+        int[] indices = new int[200];
+
+        int selected = Downsampler.largestTriangleThreeBuckets(x, y, 100, 20, indices);
+
+        assertEquals(20, selected);
+        assertEquals(99, indices[selected - 1]);
+    }
+
+    @Test
+    public void lttbSelectsSpike() {
+        int count = 100;
+        float[] x = createX(count);
+        float[] y = new float[count];
+        y[37] = 100;
+        int[] indices = new int[count];
+
+        int selected = Downsampler.largestTriangleThreeBuckets(x, y, count, 10, indices);
+
+        assertTrue(contains(indices, selected, 37));
+    }
+
+    @Test
+    public void lttbKeepsOneIndexPerGap() {
+        int count = 100;
+        float[] x = createX(count);
+        float[] y = createWave(count);
+        for (int i = 40; i < 50; i++) {
+            y[i] = Float.NaN;
+        }
+        int[] indices = new int[count];
+
+        int selected = Downsampler.largestTriangleThreeBuckets(x, y, count, 20, indices);
+
+        int gaps = 0;
+        for (int i = 0; i < selected; i++) {
+            if (Float.isNaN(y[indices[i]])) {
+                gaps++;
+            }
+        }
+        assertEquals(1, gaps);
+        assertTrue(selected <= 20);
+        assertAscending(indices, selected);
+
+        // the segments around the gap keep their ends, so the line isn't extended into the gap
+        assertTrue(contains(indices, selected, 0));
+        assertTrue(contains(indices, selected, 39));
+        assertTrue(contains(indices, selected, 50));
+        assertTrue(contains(indices, selected, count - 1));
+    }
+
+    @Test
+    public void lttbKeepsLeadingAndTrailingGaps() {
+        float[] y = createWave(60);
+        y[0] = Float.NaN;
+        y[1] = Float.NaN;
+        y[59] = Float.NaN;
+        int[] indices = new int[60];
+
+        int selected = Downsampler.largestTriangleThreeBuckets(createX(60), y, 60, 10, indices);
+
+        assertEquals(0, indices[0]);
+        assertEquals(2, indices[1]);
+        assertEquals(58, indices[selected - 2]);
+        assertEquals(59, indices[selected - 1]);
+    }
+
+    //##############################################################################################
+    // M4
+    //##############################################################################################
+
+    @Test
+    public void m4KeepsFirstMinMaxLastPerColumn() {
+        float[] x = { 0.1f, 0.3f, 0.5f, 0.7f, 0.9f, 1.2f, 1.8f };
+        float[] y = { 5, 9, 1, 4, 6, 2, 3 };
+        int[] indices = new int[x.length];
+
+        int selected = Downsampler.m4(x, y, x.length, indices);
+
+        // column 0: first 0, max 1, min 2, last 4 / column 1: first 5, last 6
+        assertEquals(6, selected);
+        assertArrayEquals(new int[] { 0, 1, 2, 4, 5, 6 }, copy(indices, selected));
+    }
+
+    @Test
+    public void m4DoesNotDuplicateIndices() {
+        float[] x = { 0.2f, 0.8f, 1.5f };
+        float[] y = { 1, 2, 3 };
+        int[] indices = new int[3];
+
+        int selected = Downsampler.m4(x, y, 3, indices);
+
+        assertEquals(3, selected);
+        assertIdentity(indices, selected);
+    }
+
+    @Test
+    public void m4PreservesColumnExtremes() {
+        int count = 5000;
+        float[] x = new float[count];
+        float[] y = createWave(count);
+        for (int i = 0; i < count; i++) {
+            x[i] = i * 0.037f;
+        }
+        int[] indices = new int[count];
+
+        int selected = Downsampler.m4(x, y, count, indices);
+
+        assertAscending(indices, selected);
+        assertTrue(selected <= 4 * ((int) x[count - 1] + 1));
+
+        // every column has to be drawn with the same first, last, lowest and highest value, so the
+        // rasterized line stays the same
+        int i = 0;
+        int s = 0;
+        while (i < count) {
+            int column = (int) x[i];
+            float min = y[i];
+            float max = y[i];
+            int first = i;
+            while (i < count && (int) x[i] == column) {
+                min = Math.min(min, y[i]);
+                max = Math.max(max, y[i]);
+                i++;
+            }
+            int last = i - 1;
+
+            assertEquals(first, indices[s]);
+            float selectedMin = Float.MAX_VALUE;
+            float selectedMax = -Float.MAX_VALUE;
+            int selectedLast = first;
+            while (s < selected && (int) x[indices[s]] == column) {
+                selectedMin = Math.min(selectedMin, y[indices[s]]);
+                selectedMax = Math.max(selectedMax, y[indices[s]]);
+                selectedLast = indices[s];
+                s++;
+            }
+            assertEquals(min, selectedMin, 0);
+            assertEquals(max, selectedMax, 0);
+            assertEquals(last, selectedLast);
+        }
+        assertEquals(selected, s);
+    }
+
+    @Test
+    public void m4EndsColumnAtGap() {
+        float[] x = { 0.1f, 0.2f, 0.3f, 0.4f, 0.5f, 0.6f };
+        float[] y = { 1, 5, Float.NaN, Float.NaN, 7, 2 };
+        int[] indices = new int[x.length];
+
+        int selected = Downsampler.m4(x, y, x.length, indices);
+
+        assertArrayEquals(new int[] { 0, 1, 2, 4, 5 }, copy(indices, selected));
+    }
+
+    @Test
+    public void m4IgnoresValuesBehindCount() {
+        float[] x = { 0.1f, 0.2f, 0.3f, 0.4f };
+        float[] y = { 1, 2, 3, 100 };
+        int[] indices = new int[x.length];
+
+        int selected = Downsampler.m4(x, y, 3, indices);
+
+        assertArrayEquals(new int[] { 0, 2 }, copy(indices, selected));
+    }
+
+    //##############################################################################################
+    // Douglas-Peucker
+    //##############################################################################################
+
+    @Test
+    public void douglasPeuckerKeepsAllPointsWithoutTolerance() {
+        float[] y = createWave(20);
+        int[] indices = new int[20];
+
+        int selected = Downsampler.douglasPeucker(createX(20), y, 20, 0, indices);
+
+        assertEquals(20, selected);
+        assertIdentity(indices, selected);
+    }
+
+    @Test
+    public void douglasPeuckerReducesStraightLine() {
+        float[] x = createX(100);
+        float[] y = new float[100];
+        for (int i = 0; i < 100; i++) {
+            y[i] = 2 * i + 1;
+        }
+        int[] indices = new int[100];
+
+        int selected = Downsampler.douglasPeucker(x, y, 100, 0.5f, indices);
+
+        assertArrayEquals(new int[] { 0, 99 }, copy(indices, selected));
+    }
+
+    @Test
+    public void douglasPeuckerKeepsCorners() {
+        float[] x = { 0, 1, 2, 3, 4, 5, 6 };
+        float[] y = { 0, 0, 0, 10, 0, 0, 0 };
+        int[] indices = new int[x.length];
+
+        int selected = Downsampler.douglasPeucker(x, y, x.length, 1, indices);
+
+        assertArrayEquals(new int[] { 0, 2, 3, 4, 6 }, copy(indices, selected));
+    }
+
+    @Test
+    public void douglasPeuckerRespectsTolerance() {
+        Random random = new Random(23);
+        int count = 2000;
+        float[] x = new float[count];
+        float[] y = new float[count];
+        for (int i = 1; i < count; i++) {
+            x[i] = x[i - 1] + random.nextFloat();
+            y[i] = y[i - 1] + random.nextFloat() * 6 - 3;
+        }
+
+        for (float tolerance : new float[] { 0.25f, 1, 4, 20 }) {
+            // the index array is exactly as big as the amount of points, so the pending ranges
+            // in its tail must never collide with the selected indices
+            int[] indices = new int[count];
+            int selected = Downsampler.douglasPeucker(x, y, count, tolerance, indices);
+
+            assertEquals(0, indices[0]);
+            assertEquals(count - 1, indices[selected - 1]);
+            assertAscending(indices, selected);
+            assertWithinTolerance(x, y, indices, selected, tolerance);
+        }
+    }
+
+    @Test
+    public void douglasPeuckerHandlesDeepRecursion() {
+        // a convex curve splits at every point, which needs the deepest stack of pending ranges
+        int count = 1000;
+        float[] x = createX(count);
+        float[] y = new float[count];
+        for (int i = 0; i < count; i++) {
+            y[i] = i * (float) i;
+        }
+        int[] indices = new int[count];
+
+        int selected = Downsampler.douglasPeucker(x, y, count, 0.001f, indices);
+
+        assertAscending(indices, selected);
+        assertWithinTolerance(x, y, indices, selected, 0.001f);
+    }
+
+    @Test
+    public void douglasPeuckerSimplifiesSegmentsBetweenGaps() {
+        int count = 30;
+        float[] x = createX(count);
+        float[] y = new float[count];
+        for (int i = 0; i < count; i++) {
+            y[i] = i;
+        }
+        y[10] = Float.NaN;
+        y[11] = Float.NaN;
+        y[29] = Float.NaN;
+        int[] indices = new int[count];
+
+        int selected = Downsampler.douglasPeucker(x, y, count, 0.5f, indices);
+
+        // every straight segment keeps its ends and every gap keeps one index
+        assertArrayEquals(new int[] { 0, 9, 10, 12, 28, 29 }, copy(indices, selected));
+    }
+
+    @Test
+    public void douglasPeuckerKeepsSinglePointsBetweenGaps() {
+        float[] x = createX(5);
+        float[] y = { Float.NaN, 3, Float.NaN, 4, 5 };
+        int[] indices = new int[5];
+
+        int selected = Downsampler.douglasPeucker(x, y, 5, 1, indices);
+
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, copy(indices, selected));
+    }
+
+    //##############################################################################################
+    // Helper
+    //##############################################################################################
+
+    static float[] createX(int _Count) {
+        float[] x = new float[_Count];
+        for (int i = 0; i < _Count; i++) {
+            x[i] = i;
+        }
+        return x;
+    }
+
+    static float[] createWave(int _Count) {
+        float[] y = new float[_Count];
+        for (int i = 0; i < _Count; i++) {
+            y[i] = (float) Math.sin(i * 0.1) * 50 + (i % 7);
+        }
+        return y;
+    }
+
+    static int[] copy(int[] _Indices, int _Size) {
+        int[] result = new int[_Size];
+        System.arraycopy(_Indices, 0, result, 0, _Size);
+        return result;
+    }
+
+    static boolean contains(int[] _Indices, int _Size, int _Index) {
+        for (int i = 0; i < _Size; i++) {
+            if (_Indices[i] == _Index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static void assertIdentity(int[] _Indices, int _Size) {
+        for (int i = 0; i < _Size; i++) {
+            assertEquals(i, _Indices[i]);
+        }
+    }
+
+    static void assertAscending(int[] _Indices, int _Size) {
+        for (int i = 1; i < _Size; i++) {
+            assertTrue("indices not ascending at " + i, _Indices[i - 1] < _Indices[i]);
+        }
+    }
+
+    /**
+     * Checks that every dropped point is within the tolerance of the line between its kept
+     * neighbours.
+     */
+    static void assertWithinTolerance(float[] _X, float[] _Y, int[] _Indices, int _Size, float _Tolerance) {
+        for (int s = 1; s < _Size; s++) {
+            int from = _Indices[s - 1];
+            int to = _Indices[s];
+            double dx = _X[to] - _X[from];
+            double dy = _Y[to] - _Y[from];
+            double length = Math.sqrt(dx * dx + dy * dy);
+
+            for (int i = from + 1; i < to; i++) {
+                double px = _X[i] - _X[from];
+                double py = _Y[i] - _Y[from];
+                double distance = length == 0
+                        ? Math.sqrt(px * px + py * py)
+                        : Math.abs(dx * py - dy * px) / length;
+                assertTrue("point " + i + " is " + distance + " away", distance <= _Tolerance * 1.001);
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ *
+ *   Copyright (C) 2014 Paul Cech
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.eazegraph.lib.utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class RangeMinMaxIndexTest {
+
+    @Test
+    public void emptyIndexReturnsInfinity() {
+        RangeMinMaxIndex index = new RangeMinMaxIndex();
+
+        assertEquals(Float.POSITIVE_INFINITY, index.getMin(new float[0], 0, 10), 0);
+        assertEquals(Float.NEGATIVE_INFINITY, index.getMax(new float[0], 0, 10), 0);
+    }
+
+    @Test
+    public void queriesWithinOneBlock() {
+        float[] values = { 4, 2, 8, 6 };
+        RangeMinMaxIndex index = new RangeMinMaxIndex();
+        index.rebuild(values, values.length);
+
+        assertEquals(2, index.getMin(values, 0, 3), 0);
+        assertEquals(8, index.getMax(values, 0, 3), 0);
+        assertEquals(6, index.getMin(values, 2, 3), 0);
+        assertEquals(4, index.getMax(values, 0, 1), 0);
+    }
+
+    @Test
+    public void queriesMatchBruteForce() {
+        Random random = new Random(7);
+        float[] values = createValues(random, 1000);
+        RangeMinMaxIndex index = new RangeMinMaxIndex();
+        index.rebuild(values, values.length);
+
+        for (int i = 0; i < 2000; i++) {
+            int from = random.nextInt(values.length);
+            int to = from + random.nextInt(values.length - from);
+            assertRange(index, values, values.length, from, to);
+        }
+    }
+
+    @Test
+    public void queriesAtBlockBorders() {
+        Random random = new Random(3);
+        float[] values = createValues(random, 200);
+        RangeMinMaxIndex index = new RangeMinMaxIndex();
+        index.rebuild(values, values.length);
+
+        for (int from = 0; from < 70; from++) {
+            for (int to = from; to < values.length; to += 31) {
+                assertRange(index, values, values.length, from, to);
+            }
+        }
+    }
+
+    @Test
+    public void gapsAreIgnored() {
+        float[] values = new float[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Float.NaN;
+        }
+        values[10] = 5;
+        values[70] = -3;
+        RangeMinMaxIndex index = new RangeMinMaxIndex();
+        index.rebuild(values, values.length);
+
+        assertEquals(-3, index.getMin(values, 0, 99), 0);
+        assertEquals(5, index.getMax(values, 0, 99), 0);
+        assertEquals(Float.POSITIVE_INFINITY, index.getMin(values, 11, 69), 0);
+        assertEquals(Float.NEGATIVE_INFINITY, index.getMax(values, 11, 69), 0);
+    }
+
+    @Test
+    public void rangeIsClamped() {
+        float[] values = { 1, 2, 3, 4, 99 };
+        RangeMinMaxIndex index = new RangeMinMaxIndex();
+        index.rebuild(values, 4);
+
+        assertEquals(1, index.getMin(values, -5, 10), 0);
+        assertEquals(4, index.getMax(values, -5, 10), 0);
+        assertEquals(Float.NEGATIVE_INFINITY, index.getMax(values, 4, 10), 0);
+        assertEquals(Float.NEGATIVE_INFINITY, index.getMax(values, 3, 2), 0);
+    }
+
+    @Test
+    public void appendedValuesAreIndexed() {
+        Random random = new Random(11);
+        float[] values = createValues(random, 500);
+        RangeMinMaxIndex index = new RangeMinMaxIndex();
+
+        // the tree has to grow several times
+        for (int count = 1; count <= values.length; count++) {
+            index.update(values, count, count - 1);
+            assertRange(index, values, count, 0, count - 1);
+            assertRange(index, values, count, count / 2, count - 1);
+        }
+    }
+
+    @Test
+    public void changedValuesAreIndexed() {
+        Random random = new Random(5);
+        float[] values = createValues(random, 300);
+        RangeMinMaxIndex index = new RangeMinMaxIndex();
+        index.rebuild(values, values.length);
+
+        for (int i = 0; i < 500; i++) {
+            int changed = random.nextInt(values.length);
+            values[changed] = random.nextInt(8) == 0 ? Float.NaN : random.nextFloat() * 200 - 100;
+            index.update(values, values.length, changed);
+
+            int from = random.nextInt(values.length);
+            int to = from + random.nextInt(values.length - from);
+            assertRange(index, values, values.length, from, to);
+            assertRange(index, values, values.length, 0, values.length - 1);
+        }
+    }
+
+    //##############################################################################################
+    // Helper
+    //##############################################################################################
+
+    private static float[] createValues(Random _Random, int _Count) {
+        float[] values = new float[_Count];
+        for (int i = 0; i < _Count; i++) {
+            values[i] = _Random.nextInt(8) == 0 ? Float.NaN : _Random.nextFloat() * 200 - 100;
+        }
+        return values;
+    }
+
+    private static void assertRange(RangeMinMaxIndex _Index, float[] _Values, int _Count, int _From, int _To) {
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        for (int i = Math.max(_From, 0); i <= Math.min(_To, _Count - 1); i++) {
+            if (!Float.isNaN(_Values[i])) {
+                min = Math.min(min, _Values[i]);
+                max = Math.max(max, _Values[i]);
+            }
+        }
+        String range = "range " + _From + ".." + _To + " of " + _Count;
+        assertEquals(range, min, _Index.getMin(_Values, _From, _To), 0);
+        assertEquals(range, max, _Index.getMax(_Values, _From, _To), 0);
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ *
+ *   Copyright (C) 2014 Paul Cech
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.eazegraph.lib.utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UtilsTest {
+
+    //##############################################################################################
+    // findFloorIndex
+    //##############################################################################################
+
+    @Test
+    public void findFloorIndexOfEmptyArray() {
+        assertEquals(-1, Utils.findFloorIndex(new double[0], 0, 5));
+    }
+
+    @Test
+    public void findFloorIndexBeforeFirstValue() {
+        double[] values = { 1, 2, 3 };
+        assertEquals(-1, Utils.findFloorIndex(values, 3, 0.5));
+    }
+
+    @Test
+    public void findFloorIndexOfExactMatch() {
+        double[] values = { 1, 2, 3, 4 };
+        assertEquals(0, Utils.findFloorIndex(values, 4, 1));
+        assertEquals(2, Utils.findFloorIndex(values, 4, 3));
+        assertEquals(3, Utils.findFloorIndex(values, 4, 4));
+    }
+
+    @Test
+    public void findFloorIndexBetweenValues() {
+        double[] values = { 0, 10, 20, 30 };
+        assertEquals(1, Utils.findFloorIndex(values, 4, 19.9));
+        assertEquals(3, Utils.findFloorIndex(values, 4, 1000));
+    }
+
+    @Test
+    public void findFloorIndexReturnsLastOfEqualValues() {
+        double[] values = { 1, 2, 2, 2, 3 };
+        assertEquals(3, Utils.findFloorIndex(values, 5, 2));
+    }
+
+    @Test
+    public void findFloorIndexIgnoresValuesBehindCount() {
+        double[] values = { 1, 2, 3, 0, 0 };
+        assertEquals(2, Utils.findFloorIndex(values, 3, 10));
+    }
+
+    @Test
+    public void findFloorIndexMatchesLinearSearch() {
+        double[] values = new double[50];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 1.5 + (i % 3 == 0 ? 0 : 0.25);
+        }
+
+        for (double key = -2; key < 80; key += 0.125) {
+            int expected = -1;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] <= key) {
+                    expected = i;
+                }
+            }
+            assertEquals("key " + key, expected, Utils.findFloorIndex(values, values.length, key));
+        }
+    }
+
+    //##############################################################################################
+    // calculateMonotoneTangent
+    //##############################################################################################
+
+    @Test
+    public void monotoneTangentIsZeroAtExtremes() {
+        assertEquals(0, Utils.calculateMonotoneTangent(1, 2, 1, -3), 0);
+        assertEquals(0, Utils.calculateMonotoneTangent(1, -2, 1, 3), 0);
+        assertEquals(0, Utils.calculateMonotoneTangent(1, 0, 1, 3), 0);
+        assertEquals(0, Utils.calculateMonotoneTangent(1, 2, 1, 0), 0);
+    }
+
+    @Test
+    public void monotoneTangentOfStraightLine() {
+        assertEquals(1.5f, Utils.calculateMonotoneTangent(1, 1.5f, 4, 1.5f), 1e-6);
+        assertEquals(-2, Utils.calculateMonotoneTangent(3, -2, 1, -2), 1e-6);
+    }
+
+    @Test
+    public void monotoneTangentIsHarmonicMeanForEqualWidths() {
+        assertEquals(2f * 1 * 3 / (1 + 3), Utils.calculateMonotoneTangent(2, 1, 2, 3), 1e-6);
+        assertEquals(-2f * 1 * 3 / (1 + 3), Utils.calculateMonotoneTangent(2, -1, 2, -3), 1e-6);
+    }
+
+    @Test
+    public void monotoneTangentStaysWithinBounds() {
+        Random random = new Random(13);
+
+        for (int i = 0; i < 1000; i++) {
+            float leftWidth = 0.1f + random.nextFloat() * 10;
+            float rightWidth = 0.1f + random.nextFloat() * 10;
+            float sign = random.nextBoolean() ? 1 : -1;
+            float leftSlope = sign * (0.01f + random.nextFloat() * 100);
+            float rightSlope = sign * (0.01f + random.nextFloat() * 100);
+
+            float tangent = Utils.calculateMonotoneTangent(leftWidth, leftSlope, rightWidth, rightSlope);
+            float min = Math.min(Math.abs(leftSlope), Math.abs(rightSlope));
+            float max = Math.max(Math.abs(leftSlope), Math.abs(rightSlope));
+
+            // the tangent has the direction of the data and Fritsch-Carlson's bound of three times
+            // the smaller slope, which keeps the curve monotone
+            assertTrue(tangent * sign > 0);
+            assertTrue(Math.abs(tangent) >= min * 0.9999f);
+            assertTrue(Math.abs(tangent) <= max * 1.0001f);
+            assertTrue(Math.abs(tangent) <= 3 * min * 1.0001f);
+        }
+    }
+
+    @Test
+    public void monotoneTangentsKeepCurveMonotone() {
+        Random random = new Random(17);
+        int count = 50;
+        float[] x = new float[count];
+        float[] y = new float[count];
+        for (int i = 1; i < count; i++) {
+            x[i] = x[i - 1] + 0.5f + random.nextFloat() * 5;
+            // flat parts and steep steps are the cases which overshoot with other splines
+            y[i] = y[i - 1] + (random.nextInt(3) == 0 ? 0 : random.nextFloat() * random.nextFloat() * 100);
+        }
+
+        float[] tangents = new float[count];
+        tangents[0] = (y[1] - y[0]) / (x[1] - x[0]);
+        tangents[count - 1] = (y[count - 1] - y[count - 2]) / (x[count - 1] - x[count - 2]);
+        for (int i = 1; i < count - 1; i++) {
+            float leftWidth = x[i] - x[i - 1];
+            float rightWidth = x[i + 1] - x[i];
+            tangents[i] = Utils.calculateMonotoneTangent(leftWidth, (y[i] - y[i - 1]) / leftWidth,
+                    rightWidth, (y[i + 1] - y[i]) / rightWidth);
+        }
+
+        for (int i = 0; i < count - 1; i++) {
+            float width = x[i + 1] - x[i];
+            float previous = y[i];
+            for (int step = 1; step <= 20; step++) {
+                float t = step / 20f;
+                float t2 = t * t;
+                float t3 = t2 * t;
+                float value = (2 * t3 - 3 * t2 + 1) * y[i] + (t3 - 2 * t2 + t) * width * tangents[i]
+                        + (-2 * t3 + 3 * t2) * y[i + 1] + (t3 - t2) * width * tangents[i + 1];
+
+                assertTrue("segment " + i + " decreases", value >= previous - 1e-3f);
+                assertTrue("segment " + i + " overshoots", value <= y[i + 1] + 1e-3f);
+                previous = value;
+            }
+        }
+    }
+}